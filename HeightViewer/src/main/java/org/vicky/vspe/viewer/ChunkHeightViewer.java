@@ -4,13 +4,16 @@ package org.vicky.vspe.viewer;
 // Java 17+
 // Requires JavaFX on the classpath/module-path.
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import javafx.animation.PauseTransition;
 import javafx.application.Application;
 import javafx.application.Platform;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Insets;
 import javafx.scene.*;
 import javafx.scene.control.*;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
 import javafx.scene.image.WritableImage;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.BorderPane;
@@ -25,18 +28,27 @@ import javafx.scene.transform.Rotate;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 
-import java.awt.image.BufferedImage;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
 
 /**
  * Basic JavaFX 3D viewer for int[] heights (chunkWidth x chunkWidth).
  * Plug a HeightProvider (chunkX, chunkZ) -> int[] and press "Regenerate".
  */
 public class ChunkHeightViewer extends Application {
+    // tiles are up to 256x256 ints each, so bound the cache by bytes rather than by tile count
+    private static final long TILE_CACHE_BYTES = 256L * 1024 * 1024;
+    private static final int FETCH_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+    // camera distance at which the LOD tolerance spinner applies as-is; each sqrt(2) step further scales it by sqrt(2)
+    private static final double LOD_REFERENCE_DISTANCE = 80.0;
+
     // Set this before launching, or replace in start() with a real provider.
     public static HeightProvider PROVIDER = createDemoProvider();
     private final Group worldGroup = new Group();
@@ -52,6 +64,19 @@ public class ChunkHeightViewer extends Application {
     private final PauseTransition refreshDelay = new PauseTransition(Duration.millis(200));
     // background executor for generation work
     private final ExecutorService genExecutor = Executors.newSingleThreadExecutor();
+    // bounded pool for provider calls; daemon threads so it never keeps the app alive
+    private final ExecutorService fetchExecutor = Executors.newFixedThreadPool(FETCH_THREADS, r -> {
+        Thread t = new Thread(r, "height-fetch");
+        t.setDaemon(true);
+        return t;
+    });
+    // chunk tiles already fetched; the provider is part of the key so switching providers never mixes tiles
+    private final Cache<TileKey, int[]> tileCache = Caffeine.newBuilder()
+            .maximumWeight(TILE_CACHE_BYTES)
+            .weigher((TileKey key, int[] tile) -> tile.length * Integer.BYTES)
+            .build();
+    // provider whose tiles the cache holds; only touched on the FX thread
+    private HeightProvider tileProvider;
     private final Slider scaleSlider = new Slider(0.0, 200.0, 10.0);
     private final Spinner<Integer> chunkXSpinner = new Spinner<>(-1000, 1000, 0);
     private final Spinner<Integer> chunkZSpinner = new Spinner<>(-1000, 1000, 0);
@@ -59,11 +84,23 @@ public class ChunkHeightViewer extends Application {
     private final Spinner<Integer> gridSizeSpinner = new Spinner<>(8, 256, 16, 8);
     private final Spinner<Integer> regionChunksXSpinner = new Spinner<>(1, 64, 1, 1);
     private final Spinner<Integer> regionChunksZSpinner = new Spinner<>(1, 64, 1, 1);
+    private final Spinner<Double> lodToleranceSpinner = new Spinner<>(0.0, 20.0, 0.5, 0.25);
     private double anchorX, anchorY;
     private double anchorAngleX = 0;
     private double anchorAngleY = 0;
     // optional: a flag so we don't schedule two concurrent builds
     private volatile boolean building = false;
+    // a refresh was requested while building; run it once the current one is applied
+    private boolean refreshPending = false;
+    // last frame handed to the FX thread; only touched by genExecutor while building, so the next
+    // frame can diff against it and patch its arrays in place
+    private Frame lastFrame;
+    // shown mesh/texture, FX thread only
+    private TerrainLod.Mesh shownMesh;
+    private WritableImage shownTexture;
+    // LOD step of the camera distance the shown mesh was built for, FX thread only
+    private int lodLevel = lodLevelFor(cameraDistance);
+    private final Label frameLabel = new Label("Frame: -");
     private final int lastChunkX = 0;
     private final int lastChunkZ = 0;
     public ChunkHeightViewer() {
@@ -73,19 +110,40 @@ public class ChunkHeightViewer extends Application {
     }
 
     /**
-     * Calls provider for each chunk in the rectangular region [startChunkX..startChunkX+chunksX-1]
+     * Fetches every chunk in the rectangular region [startChunkX..startChunkX+chunksX-1]
      * x [startChunkZ..startChunkZ+chunksZ-1] and stitches them into one big int[] of size
      * (chunksZ * chunkSize) * (chunksX * chunkSize) in row-major (z*width + x).
      * <p>
+     * Chunks missing from the tile cache are requested from the provider in parallel on
+     * {@link #fetchExecutor}; the rest, e.g. after panning by a few chunks, are reused as-is.
+     * <p>
      * Provider signature: int[] getChunkHeights(int chunkX, int chunkZ, int requestedChunkSize)
      */
-    private static int[] stitchChunks(HeightProvider provider,
-                                      int startChunkX, int startChunkZ,
-                                      int chunksX, int chunksZ,
-                                      int requestedChunkSize) {
+    private Mosaic stitchChunks(HeightProvider provider,
+                                int startChunkX, int startChunkZ,
+                                int chunksX, int chunksZ,
+                                int requestedChunkSize) {
+
+        int[][] tiles = new int[chunksX * chunksZ][];
+        CompletableFuture<?>[] pending = new CompletableFuture<?>[tiles.length];
+        int fetched = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            TileKey key = new TileKey(provider, startChunkX + i % chunksX, startChunkZ + i / chunksX, requestedChunkSize);
+            int[] cached = tileCache.getIfPresent(key);
+            if (cached != null) {
+                tiles[i] = cached;
+                continue;
+            }
+            final int slot = i;
+            pending[i] = CompletableFuture.runAsync(() -> tiles[slot] = fetchTile(key), fetchExecutor);
+            fetched++;
+        }
+        for (CompletableFuture<?> f : pending) {
+            if (f != null) f.join();
+        }
 
-        // query one chunk to determine canonical per-chunk size
-        int[] sample = provider.getChunkHeights(startChunkX, startChunkZ, requestedChunkSize);
+        // the first chunk determines the canonical per-chunk size
+        int[] sample = tiles[0];
         if (sample == null) return null;
 
         int baseChunkSize = (int) Math.round(Math.sqrt(sample.length));
@@ -99,9 +157,7 @@ public class ChunkHeightViewer extends Application {
 
         for (int rz = 0; rz < chunksZ; rz++) {
             for (int rx = 0; rx < chunksX; rx++) {
-                int cx = startChunkX + rx;
-                int cz = startChunkZ + rz;
-                int[] chunk = provider.getChunkHeights(cx, cz, requestedChunkSize);
+                int[] chunk = tiles[rz * chunksX + rx];
 
                 if (chunk == null) {
                     // fill the whole chunk rectangle with zeros (all rows)
@@ -118,7 +174,7 @@ public class ChunkHeightViewer extends Application {
                     chunkSize = (int) Math.round(Math.sqrt(chunk.length)); // keep it anyway
                 }
 
-                // if chunk size differs from baseChunkSize, resize it first
+                // if chunk size differs from baseChunkSize, resize it first (cached tiles stay untouched)
                 if (chunkSize != baseChunkSize) {
                     chunk = resizeChunkArray(chunk, chunkSize, baseChunkSize);
                     chunkSize = baseChunkSize;
@@ -132,7 +188,13 @@ public class ChunkHeightViewer extends Application {
                 }
             }
         }
-        return out;
+        return new Mosaic(out, outW, outH, baseChunkSize, fetched, tiles.length - fetched);
+    }
+
+    private int[] fetchTile(TileKey key) {
+        int[] tile = key.provider().getChunkHeights(key.chunkX(), key.chunkZ(), key.size());
+        if (tile != null) tileCache.put(key, tile);
+        return tile;
     }
 
     private static int[] resizeChunkArray(int[] src, int oldSize, int newSize) {
@@ -174,29 +236,30 @@ public class ChunkHeightViewer extends Application {
 
 
 
-    // Upsample using bilinear interpolation to size * upsample
-    private static int[] upsampleHeights(int[] base, int size, int upsample) {
-        int newSize = size * upsample;
-        int[] out = new int[newSize * newSize];
-        for (int z = 0; z < newSize; z++) {
-            double gz = (z / (double) (newSize - 1)) * (size - 1);
+    // Upsample using bilinear interpolation to (w * upsample) x (h * upsample)
+    private static int[] upsampleHeights(int[] base, int w, int h, int upsample) {
+        int newW = w * upsample;
+        int newH = h * upsample;
+        int[] out = new int[newW * newH];
+        IntStream.range(0, newH).parallel().forEach(z -> {
+            double gz = (z / (double) (newH - 1)) * (h - 1);
             int iz = (int) Math.floor(gz);
             double tz = gz - iz;
-            iz = Math.min(iz, size - 2);
-            for (int x = 0; x < newSize; x++) {
-                double gx = (x / (double) (newSize - 1)) * (size - 1);
+            iz = Math.min(iz, h - 2);
+            for (int x = 0; x < newW; x++) {
+                double gx = (x / (double) (newW - 1)) * (w - 1);
                 int ix = (int) Math.floor(gx);
                 double tx = gx - ix;
-                ix = Math.min(ix, size - 2);
+                ix = Math.min(ix, w - 2);
 
-                int a = base[iz * size + ix];
-                int b = base[iz * size + (ix + 1)];
-                int c = base[(iz + 1) * size + ix];
-                int d = base[(iz + 1) * size + (ix + 1)];
+                int a = base[iz * w + ix];
+                int b = base[iz * w + (ix + 1)];
+                int c = base[(iz + 1) * w + ix];
+                int d = base[(iz + 1) * w + (ix + 1)];
                 double v = bilerp(a, b, c, d, tx, tz);
-                out[z * newSize + x] = (int) Math.round(v);
+                out[z * newW + x] = (int) Math.round(v);
             }
-        }
+        });
         return out;
     }
 
@@ -206,26 +269,6 @@ public class ChunkHeightViewer extends Application {
         return ab + (cd - ab) * ty;
     }
 
-    /**
-     * Build a WritableImage colored by height (terrain palette).
-     */
-    private static WritableImage buildHeightmapImage(int[] heights, int w, int h) {
-        int min = Arrays.stream(heights).min().orElse(0);
-        int max = Arrays.stream(heights).max().orElse(min + 1);
-        int range = Math.max(1, max - min);
-        BufferedImage bi = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
-
-        for (int z = 0; z < h; z++) {
-            for (int x = 0; x < w; x++) {
-                int v = heights[z * w + x];
-                double t = (v - min) / (double) range;
-                int rgb = terrainColor(t);
-                bi.setRGB(x, z, rgb);
-            }
-        }
-        return SwingFXUtils.toFXImage(bi, null);
-    }
-
     /**
      * A simple terrain gradient (sea->sand->grass->rock->snow) -> ARGB int
      */
@@ -267,66 +310,16 @@ public class ChunkHeightViewer extends Application {
     }
 
     /**
-     * Build mesh and assign to MeshView. Each vertex has matching texcoord.
+     * Writes texture colours for the samples in [x0,x1) x [z0,z1) of a w-wide grid.
      */
-    private static void buildMeshFromHeights(MeshView mv, int[] heights, int size, float verticalScale) {
-        TriangleMesh mesh = new TriangleMesh();
-        // points: for each (x,z) -> (x, height * scale, z)
-        float[] points = new float[size * size * 3];
-        float[] texCoords = new float[size * size * 2];
-
-        int min = Arrays.stream(heights).min().orElse(0);
-        int max = Arrays.stream(heights).max().orElse(min + 1);
-        int range = Math.max(1, max - min);
-
-        int pIdx = 0, tIdx = 0;
-        for (int z = 0; z < size; z++) {
-            for (int x = 0; x < size; x++) {
-                int v = heights[z * size + x];
-                float fy = (v - min) / (float) range * verticalScale;
-                points[pIdx++] = (float) x;
-                points[pIdx++] = fy;
-                points[pIdx++] = (float) z;
-
-                // uv
-                texCoords[tIdx++] = x / (float) (size - 1);
-                texCoords[tIdx++] = z / (float) (size - 1);
+    private static void fillTexels(int[] heights, int w, int x0, int z0, int x1, int z1,
+                                   int min, int range, int[] argb) {
+        for (int z = z0; z < z1; z++) {
+            int i = z * w + x0;
+            for (int x = x0; x < x1; x++, i++) {
+                argb[i] = terrainColor((heights[i] - min) / (double) range);
             }
         }
-        mesh.getPoints().setAll(points);
-        mesh.getTexCoords().setAll(texCoords);
-
-        // faces (two triangles per cell)
-        int[] faces = new int[(size - 1) * (size - 1) * 6 * 2]; // 6 int entries per triangle (p,t), 2 triangles
-        int f = 0;
-        for (int z = 0; z < size - 1; z++) {
-            for (int x = 0; x < size - 1; x++) {
-                int v00 = z * size + x;
-                int v10 = z * size + (x + 1);
-                int v01 = (z + 1) * size + x;
-                int v11 = (z + 1) * size + (x + 1);
-
-                // triangle 1: v00, v01, v11
-                faces[f++] = v00;
-                faces[f++] = v00;
-                faces[f++] = v01;
-                faces[f++] = v01;
-                faces[f++] = v11;
-                faces[f++] = v11;
-
-                // triangle 2: v00, v11, v10
-                faces[f++] = v00;
-                faces[f++] = v00;
-                faces[f++] = v11;
-                faces[f++] = v11;
-                faces[f++] = v10;
-                faces[f++] = v10;
-            }
-        }
-        mesh.getFaces().setAll(faces);
-        mesh.getFaceSmoothingGroups().setAll(new int[(size - 1) * (size - 1) * 2]); // default smoothing groups (zeros ok)
-
-        mv.setMesh(mesh);
     }
 
     private static HeightProvider createDemoProvider() {
@@ -350,22 +343,6 @@ public class ChunkHeightViewer extends Application {
         };
     }
 
-    // create BufferedImage off-thread (similar to buildHeightmapImage but returns BufferedImage)
-    private static BufferedImage buildHeightmapBufferedImage(int[] heights, int w, int h) {
-        int min = Arrays.stream(heights).min().orElse(0);
-        int max = Arrays.stream(heights).max().orElse(min + 1);
-        int range = Math.max(1, max - min);
-        BufferedImage bi = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
-        for (int z = 0; z < h; z++) {
-            for (int x = 0; x < w; x++) {
-                int v = heights[z * w + x];
-                double t = (v - min) / (double) range;
-                bi.setRGB(x, z, terrainColor(t));
-            }
-        }
-        return bi;
-    }
-
     // crater provider
     private static HeightProvider createCraterProvider() {
         return (cx, cz, size) -> {
@@ -410,6 +387,7 @@ public class ChunkHeightViewer extends Application {
         gridSizeSpinner.setDisable(disabled);
         regionChunksXSpinner.setDisable(disabled);
         regionChunksZSpinner.setDisable(disabled);
+        lodToleranceSpinner.setDisable(disabled);
     }
 
     // call this after controls are constructed
@@ -426,6 +404,7 @@ public class ChunkHeightViewer extends Application {
         // if you added region spinners:
         regionChunksXSpinner.valueProperty().addListener((obs, oldV, newV) -> refreshDelay.playFromStart());
         regionChunksZSpinner.valueProperty().addListener((obs, oldV, newV) -> refreshDelay.playFromStart());
+        lodToleranceSpinner.valueProperty().addListener((obs, oldV, newV) -> refreshDelay.playFromStart());
 
         // When pause finishes, run async regenerate
         refreshDelay.setOnFinished(evt -> regenerateAndBuildAsync());
@@ -481,6 +460,9 @@ public class ChunkHeightViewer extends Application {
                 new Label("Z:"), regionChunksZSpinner);
         controls.getChildren().add(regionBox);
 
+        lodToleranceSpinner.setEditable(true);
+        controls.getChildren().add(new HBox(6, new Label("Max height error:"), lodToleranceSpinner));
+
         scaleSlider.setShowTickMarks(true);
         scaleSlider.setShowTickLabels(true);
         scaleSlider.setMajorTickUnit(50);
@@ -514,6 +496,9 @@ public class ChunkHeightViewer extends Application {
         controls.getChildren().add(new Label("Status / info:"));
         controls.getChildren().add(status);
 
+        frameLabel.setWrapText(true);
+        controls.getChildren().add(frameLabel);
+
         // build layout
         root.setRight(controls);
 
@@ -542,6 +527,8 @@ public class ChunkHeightViewer extends Application {
             cameraDistance -= delta * 0.2;
             cameraDistance = Math.max(10, Math.min(2000, cameraDistance));
             updateCameraPosition();
+            // re-mesh only when the distance crosses into another LOD step
+            if (lodLevelFor(cameraDistance) != lodLevel) refreshDelay.playFromStart();
         });
 
         s.setOnMousePressed(ev -> {
@@ -576,136 +563,239 @@ public class ChunkHeightViewer extends Application {
      * Regenerate using provider and rebuild mesh + texture.
      */
     private void regenerateAndBuild() {
-        int startChunkX = chunkXSpinner.getValue();
-        int startChunkZ = chunkZSpinner.getValue();
-        int upsample = upsampleSpinner.getValue();
-        double vscale = scaleSlider.getValue();
-
-        int requestChunkSize = gridSizeSpinner.getValue();   // e.g. 16
-        int regionChunksX = regionChunksXSpinner.getValue();
-        int regionChunksZ = regionChunksZSpinner.getValue();
-
-        // stitch region of chunks
-        int[] heightsBase = stitchChunks(PROVIDER, startChunkX, startChunkZ, regionChunksX, regionChunksZ, requestChunkSize);
-        if (heightsBase == null) {
-            System.err.println("Provider returned null heights for region");
-            return;
-        }
-
-        int baseSize = (int) Math.round(Math.sqrt(heightsBase.length)); // total width/height of the mosaic
-        // optionally additional upsampling
-        int[] heights = upsample > 1 ? upsampleHeights(heightsBase, baseSize, upsample) : heightsBase;
-        int finalSize = baseSize * (upsample > 1 ? upsample : 1);
-
-        buildMeshFromHeights(meshView, heights, finalSize, (float) vscale);
-
-        WritableImage img = buildHeightmapImage(heights, finalSize, finalSize);
-        PhongMaterial mat = new PhongMaterial();
-        mat.setDiffuseMap(img);
-        mat.setSpecularColor(Color.rgb(40, 40, 40));
-        meshView.setMaterial(mat);
-
-        meshView.setTranslateX(-finalSize / 2.0);
-        meshView.setTranslateZ(-finalSize / 2.0);
+        regenerateAndBuildAsync();
     }
+
     private void regenerateAndBuildAsync() {
 
-        // Avoid concurrent builds
-        if (building) return;
+        // Avoid concurrent builds; remember the request and run it once the current build is shown
+        if (building) {
+            refreshPending = true;
+            return;
+        }
         building = true;
         setControlsDisabled(true);
 
         // capture UI state (do this on FX thread)
+        final HeightProvider provider = PROVIDER;
+        if (provider != tileProvider) {
+            // a replaced provider is never asked again, so drop its tiles now instead of waiting for eviction
+            tileCache.asMap().keySet().removeIf(key -> key.provider() != provider);
+            tileProvider = provider;
+        }
         final int startChunkX = chunkXSpinner.getValue();
         final int startChunkZ = chunkZSpinner.getValue();
-        final int upsample = upsampleSpinner.getValue();
+        final int upsample = Math.max(upsampleSpinner.getValue(), 1);
         final double vscale = scaleSlider.getValue();
         final int requestChunkSize = gridSizeSpinner.getValue();
-        // if you added region spinners:
-        final int regionChunksX = (regionChunksXSpinner != null) ? regionChunksXSpinner.getValue() : 1;
-        final int regionChunksZ = (regionChunksZSpinner != null) ? regionChunksZSpinner.getValue() : 1;
+        final int regionChunksX = regionChunksXSpinner.getValue();
+        final int regionChunksZ = regionChunksZSpinner.getValue();
+        final int level = lodLevelFor(cameraDistance);
+        final float tolerance = (float) (lodToleranceSpinner.getValue() * Math.pow(2.0, level / 2.0));
 
         // Offload generation to background executor
         CompletableFuture.supplyAsync(() -> {
+            long t0 = System.nanoTime();
 
             // 1) stitch / call provider to get big heightmap
-            int[] heightsBase = stitchChunks(PROVIDER, startChunkX, startChunkZ, regionChunksX, regionChunksZ, requestChunkSize);
-            if (heightsBase == null) return null;
-
-            // 2) upsample if needed
-            int baseSize = (int) Math.round(Math.sqrt(heightsBase.length));
-            if (baseSize * baseSize != heightsBase.length) {
-                System.err.println("ERROR: stitched region produced non-square result: len=" + heightsBase.length);
+            Mosaic mosaic = stitchChunks(provider, startChunkX, startChunkZ, regionChunksX, regionChunksZ, requestChunkSize);
+            if (mosaic == null) {
+                System.err.println("Provider returned null heights for region");
                 return null;
             }
-            int[] heights = upsample > 1 ? upsampleHeights(heightsBase, baseSize, upsample) : heightsBase;
-            int finalSize = baseSize * (Math.max(upsample, 1));
-
-            // 3) generate an image snapshot (BufferedImage) for the texture.
-            //    building a BufferedImage can be done off-thread
-            BufferedImage bi = buildHeightmapBufferedImage(heights, finalSize, finalSize);
-
-            // return a small result object
-            return new GenResult(heights, finalSize, vscale, bi);
-        }, genExecutor).whenComplete((res, ex) -> {
-            if (ex != null) {
-                ex.printStackTrace();
-                Platform.runLater(() -> {
-                    setControlsDisabled(false);
-                    building = false;
-                });
-                return;
-            }
-            if (res == null) {
-                Platform.runLater(() -> {
-                    setControlsDisabled(false);
-                    building = false;
-                });
-                return;
-            }
-
-            // Back on FX thread: apply mesh and texture
+            long t1 = System.nanoTime();
+
+            // 2) upsample if needed, then build vertex + texel data only where it changed
+            Frame frame = buildFrame(mosaic, upsample, (float) vscale, tolerance);
+            long t2 = System.nanoTime();
+
+            frame.fetchNanos = t1 - t0;
+            frame.buildNanos = t2 - t1;
+            frame.fetchedTiles = mosaic.fetched();
+            frame.cachedTiles = mosaic.cached();
+            lastFrame = frame;
+            return frame;
+        }, genExecutor).whenComplete((frame, ex) -> {
+            if (ex != null) ex.printStackTrace();
+
+            // Back on FX thread: patch mesh and texture
             Platform.runLater(() -> {
                 try {
-                    buildMeshFromHeights(meshView, res.heights, res.size, (float) res.vscale);
-
-                    // convert BufferedImage -> WritableImage & set as material
-                    WritableImage img = SwingFXUtils.toFXImage(res.image, null);
-                    PhongMaterial mat = new PhongMaterial();
-                    mat.setDiffuseMap(img);
-                    mat.setSpecularColor(Color.rgb(40, 40, 40));
-                    meshView.setMaterial(mat);
-
-                    meshView.setTranslateX(-res.size / 2.0);
-                    meshView.setTranslateZ(-res.size / 2.0);
+                    if (frame != null) {
+                        applyFrame(frame);
+                        lodLevel = level;
+                    }
                 } finally {
                     setControlsDisabled(false);
                     building = false;
+                    if (refreshPending) {
+                        refreshPending = false;
+                        regenerateAndBuildAsync();
+                    }
                 }
             });
         });
     }
 
+    /**
+     * Turns a stitched mosaic into texel data and a simplified mesh. When the grid shape and
+     * normalisation match the previous frame, only blocks (one chunk after upsampling) whose
+     * heights changed are recoloured, into the previous frame's texel array, and reported as dirty
+     * rectangles; the mesh is rebuilt only if heights or the tolerance changed.
+     */
+    private Frame buildFrame(Mosaic mosaic, int upsample, float vscale, float tolerance) {
+        int w = mosaic.width() * upsample;
+        int h = mosaic.height() * upsample;
+        int[] heights = upsample > 1 ? upsampleHeights(mosaic.heights(), mosaic.width(), mosaic.height(), upsample) : mosaic.heights();
+
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (int v : heights) {
+            if (v < min) min = v;
+            if (v > max) max = v;
+        }
+        final int fMin = min;
+        final int range = Math.max(1, max - min);
+
+        Frame prev = lastFrame;
+        int[] argb;
+        List<int[]> dirty;
+        boolean newTexture;
+        if (prev != null && prev.width == w && prev.height == h
+                && prev.min == min && prev.max == max && prev.vscale == vscale) {
+            int block = mosaic.chunkSize() * upsample;
+            argb = prev.argb;
+            dirty = new ArrayList<>();
+            newTexture = false;
+            for (int bz = 0; bz < h; bz += block) {
+                for (int bx = 0; bx < w; bx += block) {
+                    int x1 = Math.min(bx + block, w);
+                    int z1 = Math.min(bz + block, h);
+                    if (!sameBlock(prev.heights, heights, w, bx, bz, x1, z1)) {
+                        fillTexels(heights, w, bx, bz, x1, z1, fMin, range, argb);
+                        dirty.add(new int[]{bx, bz, x1, z1});
+                    }
+                }
+            }
+        } else {
+            argb = new int[w * h];
+            IntStream.range(0, h).parallel()
+                    .forEach(z -> fillTexels(heights, w, 0, z, w, z + 1, fMin, range, argb));
+            dirty = List.of(new int[]{0, 0, w, h});
+            newTexture = true;
+        }
+
+        TerrainLod.Mesh mesh = null;
+        if (newTexture || !dirty.isEmpty() || prev.tolerance != tolerance) {
+            mesh = TerrainLod.build(heights, w, h, min, range, vscale, tolerance);
+        }
+        return new Frame(heights, w, h, min, max, vscale, tolerance, argb, newTexture, dirty, mesh);
+    }
+
+    private static boolean sameBlock(int[] a, int[] b, int w, int x0, int z0, int x1, int z1) {
+        for (int z = z0; z < z1; z++) {
+            int from = z * w + x0;
+            int to = z * w + x1;
+            if (!Arrays.equals(a, from, to, b, from, to)) return false;
+        }
+        return true;
+    }
+
+    // LOD step for a camera distance: one step per factor sqrt(2) away from the reference distance
+    private static int lodLevelFor(double distance) {
+        return (int) Math.round(2.0 * Math.log(distance / LOD_REFERENCE_DISTANCE) / Math.log(2.0));
+    }
+
+    // FX thread only
+    private void applyFrame(Frame frame) {
+        long t0 = System.nanoTime();
+        int w = frame.width;
+        int h = frame.height;
+
+        if (frame.mesh != null) {
+            TriangleMesh mesh = new TriangleMesh();
+            mesh.getPoints().setAll(frame.mesh.points());
+            mesh.getTexCoords().setAll(frame.mesh.texCoords());
+            mesh.getFaces().setAll(frame.mesh.faces());
+            meshView.setMesh(mesh);
+            meshView.setTranslateX(-w / 2.0);
+            meshView.setTranslateZ(-h / 2.0);
+            shownMesh = frame.mesh;
+        }
+
+        PixelFormat<IntBuffer> format = PixelFormat.getIntArgbInstance();
+        if (frame.newTexture || shownTexture == null) {
+            WritableImage img = new WritableImage(w, h);
+            img.getPixelWriter().setPixels(0, 0, w, h, format, frame.argb, 0, w);
+            PhongMaterial mat = new PhongMaterial();
+            mat.setDiffuseMap(img);
+            mat.setSpecularColor(Color.rgb(40, 40, 40));
+            meshView.setMaterial(mat);
+            shownTexture = img;
+        } else {
+            PixelWriter pw = shownTexture.getPixelWriter();
+            for (int[] r : frame.dirty) {
+                int x0 = r[0], z0 = r[1], x1 = r[2], z1 = r[3];
+                pw.setPixels(x0, z0, x1 - x0, z1 - z0, format, frame.argb, z0 * w + x0, w);
+            }
+        }
+        long uploadNanos = System.nanoTime() - t0;
+
+        frameLabel.setText(String.format(
+                "Frame: fetch %.1f ms (%d new, %d cached), build %.1f ms, upload %.1f ms, %d dirty block(s)%n"
+                        + "LOD: %d/%d vertices, %d triangles, max error %.3f (tolerance %.3f)",
+                frame.fetchNanos / 1e6, frame.fetchedTiles, frame.cachedTiles,
+                frame.buildNanos / 1e6, uploadNanos / 1e6, frame.dirty.size(),
+                shownMesh.vertexCount(), w * h, shownMesh.triangleCount(),
+                shownMesh.maxError(), shownMesh.tolerance()));
+    }
+
     // Interface for plugging your provider
     @FunctionalInterface
     public interface HeightProvider {
-        // returns int[width*width], row-major (z * width + x)
+        // returns int[width*width], row-major (z * width + x).
+        // Called from several fetch threads at once, so implementations must be thread-safe.
         int[] getChunkHeights(int chunkX, int chunkZ, int size);
     }
 
-    // small holder
-    private static class GenResult {
-        final int[] heights;
-        final int size;
-        final double vscale;
-        final BufferedImage image;
+    private record TileKey(HeightProvider provider, int chunkX, int chunkZ, int size) {
+    }
+
+    // stitched region: width x height samples, built from chunkSize x chunkSize tiles
+    private record Mosaic(int[] heights, int width, int height, int chunkSize, int fetched, int cached) {
+    }
 
-        GenResult(int[] heights, int size, double vscale, BufferedImage image) {
+    // small holder for one built frame; mesh is only set when it must be re-uploaded
+    private static class Frame {
+        final int[] heights;
+        final int width;
+        final int height;
+        final int min;
+        final int max;
+        final float vscale;
+        final float tolerance;
+        final int[] argb;
+        final boolean newTexture;
+        // {x0, z0, x1, z1} texel rectangles, end-exclusive
+        final List<int[]> dirty;
+        final TerrainLod.Mesh mesh;
+        long fetchNanos;
+        long buildNanos;
+        int fetchedTiles;
+        int cachedTiles;
+
+        Frame(int[] heights, int width, int height, int min, int max, float vscale, float tolerance,
+              int[] argb, boolean newTexture, List<int[]> dirty, TerrainLod.Mesh mesh) {
             this.heights = heights;
-            this.size = size;
+            this.width = width;
+            this.height = height;
+            this.min = min;
+            this.max = max;
             this.vscale = vscale;
-            this.image = image;
+            this.tolerance = tolerance;
+            this.argb = argb;
+            this.newTexture = newTexture;
+            this.dirty = dirty;
+            this.mesh = mesh;
         }
     }
 }
-
@@ -0,0 +1,285 @@
+package org.vicky.vspe.viewer;
+
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Error-bounded quadtree simplification of a height grid.
+ * <p>
+ * The grid is split recursively until every leaf approximates the samples it covers within
+ * {@code tolerance} (world units, measured on the vertical axis after scaling). Leaves that
+ * border smaller neighbours are fanned through every active vertex on their edges, so shared
+ * edges use the same vertices on both sides and the mesh has no T-junction cracks. Fans are
+ * re-checked against the samples and split further until the bound holds everywhere; a 1x1
+ * cell only touches its own four samples, so this always terminates.
+ */
+final class TerrainLod {
+    private TerrainLod() {
+    }
+
+    /** Simplified mesh: vertex i uses texcoord i; faces are (p,t) pairs as TriangleMesh expects. */
+    record Mesh(float[] points, float[] texCoords, int[] faces, int vertexCount, int triangleCount,
+                float tolerance, float maxError) {
+    }
+
+    /**
+     * @param heights   row-major samples, {@code w * h}
+     * @param min       height mapped to y = 0
+     * @param range     height span mapped to y = vscale
+     * @param tolerance maximum allowed vertical error in world units
+     */
+    static Mesh build(int[] heights, int w, int h, int min, int range, float vscale, float tolerance) {
+        float[] y = new float[w * h];
+        for (int i = 0; i < y.length; i++) {
+            y[i] = (heights[i] - min) / (float) range * vscale;
+        }
+        if (w < 2 || h < 2) {
+            return new Mesh(new float[0], new float[0], new int[0], 0, 0, tolerance, 0f);
+        }
+
+        List<int[]> leaves = new ArrayList<>();
+        ArrayDeque<int[]> work = new ArrayDeque<>();
+        work.push(new int[]{0, 0, w - 1, h - 1});
+        while (!work.isEmpty()) {
+            int[] r = work.pop();
+            if (isCell(r) || quadError(y, w, r) <= tolerance) {
+                leaves.add(r);
+            } else {
+                split(r, work);
+            }
+        }
+
+        // Fans through extra edge vertices may deviate more than the two-triangle split we tested,
+        // so keep splitting offending leaves until every triangle is within tolerance.
+        BitSet active = new BitSet(w * h);
+        TIntArrayList ring = new TIntArrayList();
+        TIntArrayList side = new TIntArrayList();
+        TIntArrayList tris = new TIntArrayList();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            active.clear();
+            for (int[] r : leaves) markCorners(r, w, active);
+
+            List<int[]> next = new ArrayList<>(leaves.size());
+            for (int[] r : leaves) {
+                tris.resetQuick();
+                triangulate(r, w, active, ring, side, tris);
+                if (!isCell(r) && trianglesError(y, w, tris) > tolerance) {
+                    split(r, next);
+                    changed = true;
+                } else {
+                    next.add(r);
+                }
+            }
+            leaves = next;
+        }
+
+        // emit compacted vertices; the active set is final now
+        int[] remap = new int[w * h];
+        TFloatArrayList points = new TFloatArrayList();
+        TFloatArrayList tex = new TFloatArrayList();
+        TIntArrayList faces = new TIntArrayList();
+        float maxError = 0f;
+        for (int[] r : leaves) {
+            tris.resetQuick();
+            triangulate(r, w, active, ring, side, tris);
+            maxError = Math.max(maxError, trianglesError(y, w, tris));
+            for (int k = 0; k < tris.size(); k++) {
+                int g = tris.getQuick(k);
+                int v = remap[g] - 1;
+                if (v < 0) {
+                    v = points.size() / 3;
+                    remap[g] = v + 1;
+                    int x = g % w, z = g / w;
+                    points.add(x);
+                    points.add(y[g]);
+                    points.add(z);
+                    tex.add(x / (float) (w - 1));
+                    tex.add(z / (float) (h - 1));
+                }
+                faces.add(v);
+                faces.add(v);
+            }
+        }
+        return new Mesh(points.toArray(), tex.toArray(), faces.toArray(),
+                points.size() / 3, faces.size() / 6, tolerance, maxError);
+    }
+
+    /**
+     * Largest vertical distance between any sample and the mesh surface above it. Used as the
+     * regression check for {@link #build}: the result must never exceed the mesh's tolerance.
+     */
+    static float maxHeightError(Mesh mesh, int[] heights, int w, int h, int min, int range, float vscale) {
+        float[] pts = mesh.points();
+        int[] faces = mesh.faces();
+        float worst = 0f;
+        for (int f = 0; f < faces.length; f += 6) {
+            int a = faces[f] * 3, b = faces[f + 2] * 3, c = faces[f + 4] * 3;
+            worst = Math.max(worst, triangleError(
+                    (int) pts[a], (int) pts[a + 2], pts[a + 1],
+                    (int) pts[b], (int) pts[b + 2], pts[b + 1],
+                    (int) pts[c], (int) pts[c + 2], pts[c + 1],
+                    (x, z) -> (heights[z * w + x] - min) / (float) range * vscale));
+        }
+        return worst;
+    }
+
+    private static boolean isCell(int[] r) {
+        return r[2] - r[0] <= 1 && r[3] - r[1] <= 1;
+    }
+
+    // halves every side longer than one cell
+    private static void split(int[] r, Collection<int[]> out) {
+        int x0 = r[0], z0 = r[1], x1 = r[2], z1 = r[3];
+        int mx = x1 - x0 > 1 ? (x0 + x1) >>> 1 : x1;
+        int mz = z1 - z0 > 1 ? (z0 + z1) >>> 1 : z1;
+        out.add(new int[]{x0, z0, mx, mz});
+        if (mx < x1) out.add(new int[]{mx, z0, x1, mz});
+        if (mz < z1) out.add(new int[]{x0, mz, mx, z1});
+        if (mx < x1 && mz < z1) out.add(new int[]{mx, mz, x1, z1});
+    }
+
+    private static void markCorners(int[] r, int w, BitSet active) {
+        active.set(r[1] * w + r[0]);
+        active.set(r[1] * w + r[2]);
+        active.set(r[3] * w + r[0]);
+        active.set(r[3] * w + r[2]);
+    }
+
+    // error of the plain two-triangle split (v00,v01,v11) + (v00,v11,v10)
+    private static float quadError(float[] y, int w, int[] r) {
+        int x0 = r[0], z0 = r[1], x1 = r[2], z1 = r[3];
+        float y00 = y[z0 * w + x0], y10 = y[z0 * w + x1], y01 = y[z1 * w + x0], y11 = y[z1 * w + x1];
+        float dx = x1 - x0, dz = z1 - z0;
+        float worst = 0f;
+        for (int z = z0; z <= z1; z++) {
+            float t = (z - z0) / dz;
+            for (int x = x0; x <= x1; x++) {
+                float u = (x - x0) / dx;
+                float approx = t >= u
+                        ? y00 + t * (y01 - y00) + u * (y11 - y01)
+                        : y00 + u * (y10 - y00) + t * (y11 - y10);
+                worst = Math.max(worst, Math.abs(y[z * w + x] - approx));
+            }
+        }
+        return worst;
+    }
+
+    /**
+     * Appends the leaf's triangles as grid indices. Plain leaves get the same two triangles as
+     * {@link #quadError}; leaves with extra active edge vertices are fanned from their centre
+     * sample, and one-cell-wide strips are zipped between their two long sides.
+     */
+    private static void triangulate(int[] r, int w, BitSet active, TIntArrayList ring, TIntArrayList side,
+                                    TIntArrayList out) {
+        int x0 = r[0], z0 = r[1], x1 = r[2], z1 = r[3];
+        ring.resetQuick();
+        for (int x = x0; x < x1; x++) if (active.get(z0 * w + x)) ring.add(z0 * w + x);
+        for (int z = z0; z < z1; z++) if (active.get(z * w + x1)) ring.add(z * w + x1);
+        for (int x = x1; x > x0; x--) if (active.get(z1 * w + x)) ring.add(z1 * w + x);
+        for (int z = z1; z > z0; z--) if (active.get(z * w + x0)) ring.add(z * w + x0);
+
+        int v00 = z0 * w + x0, v10 = z0 * w + x1, v01 = z1 * w + x0, v11 = z1 * w + x1;
+        if (ring.size() == 4) {
+            out.add(v00); out.add(v01); out.add(v11);
+            out.add(v00); out.add(v11); out.add(v10);
+            return;
+        }
+
+        if (x1 - x0 >= 2 && z1 - z0 >= 2) {
+            int pivot = ((z0 + z1) >>> 1) * w + ((x0 + x1) >>> 1);
+            int n = ring.size();
+            for (int i = 0; i < n; i++) {
+                addTriangle(out, w, pivot, ring.getQuick((i + 1) % n), ring.getQuick(i));
+            }
+            return;
+        }
+
+        // one cell wide: walk both long sides in step, always advancing the side whose next vertex comes first
+        boolean vertical = x1 - x0 == 1;
+        ring.resetQuick();
+        side.resetQuick();
+        int from = vertical ? z0 : x0, to = vertical ? z1 : x1;
+        for (int t = from; t <= to; t++) {
+            int a = vertical ? t * w + x0 : z0 * w + t;
+            int b = vertical ? t * w + x1 : z1 * w + t;
+            if (active.get(a)) ring.add(a);
+            if (active.get(b)) side.add(b);
+        }
+        int i = 0, j = 0;
+        while (i < ring.size() - 1 || j < side.size() - 1) {
+            boolean advanceA = j == side.size() - 1
+                    || (i < ring.size() - 1 && along(ring.getQuick(i + 1), w, vertical) <= along(side.getQuick(j + 1), w, vertical));
+            if (advanceA) {
+                addTriangle(out, w, ring.getQuick(i), ring.getQuick(i + 1), side.getQuick(j));
+                i++;
+            } else {
+                addTriangle(out, w, ring.getQuick(i), side.getQuick(j + 1), side.getQuick(j));
+                j++;
+            }
+        }
+    }
+
+    private static int along(int g, int w, boolean vertical) {
+        return vertical ? g / w : g % w;
+    }
+
+    // appends a, b, c with the same winding as the plain (v00, v01, v11) split
+    private static void addTriangle(TIntArrayList out, int w, int a, int b, int c) {
+        long cross = (long) (b % w - a % w) * (c / w - a / w) - (long) (b / w - a / w) * (c % w - a % w);
+        if (cross == 0) return;
+        out.add(a);
+        if (cross < 0) {
+            out.add(b);
+            out.add(c);
+        } else {
+            out.add(c);
+            out.add(b);
+        }
+    }
+
+    private static float trianglesError(float[] y, int w, TIntArrayList tris) {
+        float worst = 0f;
+        for (int k = 0; k < tris.size(); k += 3) {
+            int a = tris.getQuick(k), b = tris.getQuick(k + 1), c = tris.getQuick(k + 2);
+            worst = Math.max(worst, triangleError(
+                    a % w, a / w, y[a], b % w, b / w, y[b], c % w, c / w, y[c],
+                    (x, z) -> y[z * w + x]));
+        }
+        return worst;
+    }
+
+    @FunctionalInterface
+    private interface Sampler {
+        float at(int x, int z);
+    }
+
+    // max |sample - plane| over the grid samples inside (or on the edge of) the triangle
+    private static float triangleError(int ax, int az, float ay, int bx, int bz, float by,
+                                       int cx, int cz, float cy, Sampler sampler) {
+        long det = (long) (bz - cz) * (ax - cx) + (long) (cx - bx) * (az - cz);
+        if (det == 0) return 0f;
+        int minX = Math.min(ax, Math.min(bx, cx)), maxX = Math.max(ax, Math.max(bx, cx));
+        int minZ = Math.min(az, Math.min(bz, cz)), maxZ = Math.max(az, Math.max(bz, cz));
+        float worst = 0f;
+        for (int z = minZ; z <= maxZ; z++) {
+            for (int x = minX; x <= maxX; x++) {
+                long l1 = (long) (bz - cz) * (x - cx) + (long) (cx - bx) * (z - cz);
+                long l2 = (long) (cz - az) * (x - cx) + (long) (ax - cx) * (z - cz);
+                long l3 = det - l1 - l2;
+                boolean inside = det > 0 ? l1 >= 0 && l2 >= 0 && l3 >= 0 : l1 <= 0 && l2 <= 0 && l3 <= 0;
+                if (!inside) continue;
+                float approx = (l1 * ay + l2 * by + l3 * cy) / det;
+                worst = Math.max(worst, Math.abs(sampler.at(x, z) - approx));
+            }
+        }
+        return worst;
+    }
+}
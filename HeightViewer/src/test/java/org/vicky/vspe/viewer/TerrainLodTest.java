@@ -0,0 +1,85 @@
+package org.vicky.vspe.viewer;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Regression check for {@link TerrainLod}: the simplified mesh must cover the whole grid and stay
+ * within the requested vertical tolerance of every sample.
+ */
+class TerrainLodTest {
+    private static final float VSCALE = 20f;
+    private static final float[] TOLERANCES = {0f, 0.05f, 0.25f, 1f, 4f};
+
+    static Stream<Arguments> grids() {
+        Object[][] grids = {
+                grid("random", 65, 65, (x, z, rnd) -> rnd.nextInt(256)),
+                grid("random-narrow", 97, 33, (x, z, rnd) -> rnd.nextInt(32)),
+                grid("projected-plane", 129, 129, (x, z, rnd) -> 3 * x + 2 * z),
+                grid("crater", 129, 129, (x, z, rnd) -> {
+                    double d = Math.hypot(x - 64, z - 64);
+                    return (int) (d < 30 ? 40 + d * 1.5 : 85 - Math.min(45, (d - 30) * 0.8));
+                }),
+                grid("steps", 65, 129, (x, z, rnd) -> (x / 8) * 10 + (z / 16) * 3),
+                grid("single-cell", 2, 2, (x, z, rnd) -> x * 7 + z)
+        };
+        Stream.Builder<Arguments> out = Stream.builder();
+        for (Object[] g : grids) {
+            for (float tolerance : TOLERANCES) out.add(Arguments.of(g[0], g[1], g[2], g[3], tolerance));
+        }
+        return out.build();
+    }
+
+    @ParameterizedTest(name = "{0} {2}x{3} tolerance={4}")
+    @MethodSource("grids")
+    void meshStaysWithinTolerance(String name, int[] heights, int w, int h, float tolerance) {
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (int v : heights) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        int range = Math.max(1, max - min);
+
+        TerrainLod.Mesh mesh = TerrainLod.build(heights, w, h, min, range, VSCALE, tolerance);
+        float error = TerrainLod.maxHeightError(mesh, heights, w, h, min, range, VSCALE);
+
+        assertEquals((double) (w - 1) * (h - 1), coveredArea(mesh), 1e-6, "mesh leaves gaps or overlaps");
+        assertTrue(error <= tolerance + 1e-4f, "max error " + error + " exceeds tolerance " + tolerance);
+        assertTrue(mesh.maxError() <= tolerance + 1e-4f, "reported error " + mesh.maxError() + " exceeds tolerance");
+        assertTrue(mesh.vertexCount() <= w * h);
+    }
+
+    // sum of the triangles' footprints on the xz plane
+    private static double coveredArea(TerrainLod.Mesh mesh) {
+        float[] pts = mesh.points();
+        int[] faces = mesh.faces();
+        double area = 0;
+        for (int f = 0; f < faces.length; f += 6) {
+            int a = faces[f] * 3, b = faces[f + 2] * 3, c = faces[f + 4] * 3;
+            double cross = (pts[b] - pts[a]) * (pts[c + 2] - pts[a + 2]) - (pts[b + 2] - pts[a + 2]) * (pts[c] - pts[a]);
+            area += Math.abs(cross) / 2;
+        }
+        return area;
+    }
+
+    @FunctionalInterface
+    private interface HeightFunction {
+        int at(int x, int z, Random rnd);
+    }
+
+    private static Object[] grid(String name, int w, int h, HeightFunction fn) {
+        Random rnd = new Random(name.hashCode());
+        int[] heights = new int[w * h];
+        for (int z = 0; z < h; z++) {
+            for (int x = 0; x < w; x++) heights[z * w + x] = fn.at(x, z, rnd);
+        }
+        return new Object[]{name, heights, w, h};
+    }
+}
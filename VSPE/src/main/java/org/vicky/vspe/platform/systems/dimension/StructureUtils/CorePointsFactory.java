@@ -1,5 +1,7 @@
 package org.vicky.vspe.platform.systems.dimension.StructureUtils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.vicky.platform.utils.Vec3;
 import org.vicky.vspe.platform.systems.dimension.StructureUtils.factories.PointFactory;
 import org.vicky.vspe.platform.systems.dimension.StructureUtils.factories.StraightPointFactory;
@@ -17,6 +19,18 @@ import java.util.Random;
  * Produces List of Vec3 points along a path.
  */
 public class CorePointsFactory {
+    // Samplers are read-only once built, so every call with the same noise settings can share one.
+    // Building a JNoiseNoiseSampler probes 1024 points to find its range, which used to dominate
+    // short vines.
+    private static final int NOISE_CACHE_SIZE = 256;
+    private static final Cache<NoiseKey, NoiseSampler> LOW_NOISE = Caffeine.newBuilder()
+            .maximumSize(NOISE_CACHE_SIZE)
+            .build();
+    private static final NoiseSampler DETAIL_NOISE = new FBMGenerator(0x9A);
+
+    private record NoiseKey(long seed, double frequency, int octaves) {
+    }
+
     // Helper: signed power for sharpness adjustments
     public static double signedPow(double v, double p) {
         return Math.signum(v) * Math.pow(Math.abs(v), p);
@@ -24,14 +38,30 @@ public class CorePointsFactory {
 
     // Generate points
     public static List<Vec3> generate(Params p) {
+        List<Vec3> out = new ArrayList<>();
+        generate(p, out);
+        return out;
+    }
+
+    /**
+     * Appends the {@code p.segments + 1} path points to {@code out}, so callers generating many
+     * short paths can keep reusing one list (clear it between calls).
+     */
+    public static void generate(Params p, List<Vec3> out) {
         if (p == null) throw new IllegalArgumentException("Params must not be null");
         if (p.segments <= 1) throw new IllegalArgumentException("segments must be > 0");
 
-        List<Vec3> out = new ArrayList<>(p.segments);
-        JNoiseNoiseSampler noise = new JNoiseNoiseSampler(NoiseSamplerFactory.INSTANCE.create(NoiseSamplerFactory.Type.PERLIN, (it) -> it, p.seed == 0 ? 1234567L : p.seed, p.noiseLowFreq, p.noiseOctaves));
-        NoiseSampler hNoise = new FBMGenerator(0x9A);
+        if (out instanceof ArrayList<Vec3> list) list.ensureCapacity(out.size() + p.segments + 1);
+        NoiseSampler noise = lowNoise(p.seed == 0 ? 1234567L : p.seed, p.noiseLowFreq, p.noiseOctaves);
+        NoiseSampler hNoise = DETAIL_NOISE;
         Random rand = new Random(p.seed ^ 0x9e3779b97f4a7c15L);
 
+        // the rotation is the same for every point
+        double pitch = Math.toRadians(p.pitchDegrees);
+        double yaw = Math.toRadians(p.yawDegrees);
+        double cosP = Math.cos(pitch), sinP = Math.sin(pitch);
+        double cosY = Math.cos(yaw), sinY = Math.sin(yaw);
+
         // divergence state: a lateral vector (x,z) that decays
         double kinkX = 0.0, kinkZ = 0.0;
         double prevNoiseX = 0.0, prevNoiseZ = 0.0, prevNoiseY = 0.0;
@@ -116,7 +146,7 @@ public class CorePointsFactory {
                 finalZ = Double.isFinite(finalZ) ? finalZ : 0.0;
             }
             Vec3 pt = new Vec3(finalX, finalY, finalZ);
-            Vec3 rotated = rotateByYawPitch(pt.getIntX(), pt.getIntY(), pt.getIntZ(), p.yawDegrees, p.pitchDegrees);
+            Vec3 rotated = rotateByYawPitch(pt.getIntX(), pt.getIntY(), pt.getIntZ(), cosY, sinY, cosP, sinP);
             if (p.rotationOrigin != null) {
                 out.add(rotated.add(p.rotationOrigin));
             } else {
@@ -124,7 +154,12 @@ public class CorePointsFactory {
             }
         }
         // System.out.println(out.size());
-        return out;
+    }
+
+    private static NoiseSampler lowNoise(long seed, double frequency, int octaves) {
+        return LOW_NOISE.get(new NoiseKey(seed, frequency, octaves), key ->
+                new JNoiseNoiseSampler(NoiseSamplerFactory.INSTANCE.create(
+                        NoiseSamplerFactory.Type.PERLIN, (it) -> it, key.seed(), key.frequency(), key.octaves())));
     }
 
     private static double clamp01(double v) {
@@ -180,15 +215,17 @@ public class CorePointsFactory {
     private static Vec3 rotateByYawPitch(double x, double y, double z, double yawDeg, double pitchDeg) {
         double pitch = Math.toRadians(pitchDeg);
         double yaw = Math.toRadians(yawDeg);
+        return rotateByYawPitch(x, y, z, Math.cos(yaw), Math.sin(yaw), Math.cos(pitch), Math.sin(pitch));
+    }
 
+    private static Vec3 rotateByYawPitch(double x, double y, double z,
+                                         double cosY, double sinY, double cosP, double sinP) {
         // Pitch rotation around X:
-        double cosP = Math.cos(pitch), sinP = Math.sin(pitch);
         double y1 = cosP * y - sinP * z;
         double z1 = sinP * y + cosP * z;
         double x1 = x;
 
         // Yaw rotation around Y (use same convention as your other rotateAroundY)
-        double cosY = Math.cos(yaw), sinY = Math.sin(yaw);
         double x2 = x1 * cosY - z1 * sinY;
         double z2 = x1 * sinY + z1 * cosY;
         double y2 = y1;
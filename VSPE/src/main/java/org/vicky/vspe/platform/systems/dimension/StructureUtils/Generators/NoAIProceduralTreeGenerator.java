@@ -26,9 +26,6 @@ import static org.vicky.vspe.branch.TrunkKt.generateMultiRootSpiralTrunk;
 public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator<T> {
 
     private final NoAIPTGBuilder<T> p;
-    private final Map<List<Vec3>, Integer> leafingPoints = new HashMap<>();
-    private int trunkHeight;
-    private int trunkWidth;
 
     private static List<Vec3> resampleByArcLength(List<Vec3> pts, int targetCount) {
         if (pts == null || pts.size() < 2 || targetCount < 2) return new ArrayList<>(pts);
@@ -88,6 +85,25 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
         airFiller = false;
     }
 
+    /**
+     * Per-generate() state shared between the trunk, branch and leaf subtasks of one tree.
+     */
+    private static final class TreeRun {
+        final Map<List<Vec3>, Integer> leafingPoints = Collections.synchronizedMap(new HashMap<>());
+        volatile int trunkHeight;
+        volatile int trunkWidth;
+    }
+
+    @Override
+    public boolean supportsConcurrentGeneration() {
+        return true;
+    }
+
+    @Override
+    protected Object createRunState() {
+        return new TreeRun();
+    }
+
     @Override
     public BlockVec3i getApproximateSize() {
         // Conservative horizontal radius:
@@ -116,15 +132,18 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
     }
 
     private void generateTrunk(RandomSource rnd, Vec3 origin, SubGenerator generator) {
-        trunkHeight = rnd.nextInt(p.trunkHeightRange.key(), p.trunkHeightRange.value());
-        trunkWidth = rnd.nextInt(p.trunkWidthRange.key(), p.trunkWidthRange.value());
-
-        int finalTrunkHeight = trunkHeight;
-        Set<Vec3> UnOptimisedMemo = switch (p.trunkType) {
+        TreeRun run = runState();
+        run.trunkHeight = rnd.nextInt(p.trunkHeightRange.key(), p.trunkHeightRange.value());
+        run.trunkWidth = rnd.nextInt(p.trunkWidthRange.key(), p.trunkWidthRange.value());
+
+        int finalTrunkHeight = run.trunkHeight;
+        // trunk voxels stream straight into this subtask's buffer, which already drops repeated positions
+        VoxelSink wood = generator.blockSink(p.woodMaterial);
+        switch (p.trunkType) {
             case BONSAI -> {
                 Function<Double, Double> radiusFunction =
-                        CurveFunctions.radius((double) trunkWidth / 2, 0.0, 0.1, 1.0, TimeCurve.INVERTED_QUADRATIC);
-                double branchScale = Math.pow(trunkWidth, 0.75) * 0.5;
+                        CurveFunctions.radius((double) run.trunkWidth / 2, 0.0, 0.1, 1.0, TimeCurve.INVERTED_QUADRATIC);
+                double branchScale = Math.pow(run.trunkWidth, 0.75) * 0.5;
                 Function<Double, Double> thicknessFunction =
                         CurveFunctions.radius(branchScale, 0.0, 0.1, 1.0, TimeCurve.INVERTED_QUADRATIC);
                 Function<Double, Double> pitchFunction =
@@ -139,7 +158,7 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                         .origin(origin)
                         .divergenceDecay(0.6)
                         .segments((int) (50 * p.quality))
-                        .height(trunkHeight)
+                        .height(run.trunkHeight)
                         .width(p.bonsaiTreeHelixSpan)
                         .divergenceProbability(0.8)
                         .divergenceStrength(0.5)
@@ -157,17 +176,17 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                     for (int i = start; i < points.size(); i++) {
                         hehe.add(points.get(i));
                     }
-                    leafingPoints.put(hehe, 1);
+                    run.leafingPoints.put(hehe, 1);
                 }
 
                 if (p.branchType != BranchingType.NO_BRANCHES)
                     submitSubtask(sub -> generateBranches(sub, rnd.fork(rnd.nextLong()), points, finalTrunkHeight, radiusFunction, thicknessFunction, 1));
-                yield SpiralUtil.generateVineWithSpiral(points, thicknessFunction, 7, 0.8f, radiusFunction, pitchFunction);
+                SpiralUtil.generateVineWithSpiral(points, thicknessFunction, 7, 0.8f, radiusFunction, pitchFunction, wood);
             }
             case CONIFEROUS -> {
                 Function<Double, Double> radiusFunction =
-                        CurveFunctions.radius((double) trunkWidth / 2, 0.0, 0.0, 1.0, TimeCurve.TRUNK_TAPER);
-                double branchScale = Math.pow(trunkWidth, 0.75) * 0.5;
+                        CurveFunctions.radius((double) run.trunkWidth / 2, 0.0, 0.0, 1.0, TimeCurve.TRUNK_TAPER);
+                double branchScale = Math.pow(run.trunkWidth, 0.75) * 0.5;
                 Function<Double, Double> thicknessFunction =
                         CurveFunctions.radius(branchScale, 0.0, 0.1, 1.0, TimeCurve.QUADRATIC);
                 Function<Double, Double> pitchFunction =
@@ -181,8 +200,8 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                         .origin(origin)
                         .divergenceDecay(0.3)
                         .segments((int) (20 * p.quality))
-                        .height(trunkHeight)
-                        .width(trunkWidth)
+                        .height(run.trunkHeight)
+                        .width(run.trunkWidth)
                         .divergenceProbability(0.4)
                         .divergenceStrength(0.2)
                         .noiseSmooth(0.5)
@@ -194,13 +213,12 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
 
                 if (p.branchType != BranchingType.NO_BRANCHES)
                     submitSubtask(sub -> generateBranches(sub, rnd.fork(rnd.nextLong()), points, finalTrunkHeight, radiusFunction, thicknessFunction, 1));
-                yield SpiralUtil.generateVineWithSpiral(points, thicknessFunction, 7, 0.8f, radiusFunction, pitchFunction);
+                SpiralUtil.generateVineWithSpiral(points, thicknessFunction, 7, 0.8f, radiusFunction, pitchFunction, wood);
             }
             case MULTI_TRUNKED -> {
-                Set<Vec3> Unloaded = new HashSet<>();
                 Function<Double, Double> radiusFunction =
-                        CurveFunctions.radius((double) trunkWidth / 2, (double) trunkWidth / 4, 0.1, 1.0, TimeCurve.QUADRATIC);
-                double branchScale = Math.pow(trunkWidth, 0.75) * 0.5;
+                        CurveFunctions.radius((double) run.trunkWidth / 2, (double) run.trunkWidth / 4, 0.1, 1.0, TimeCurve.QUADRATIC);
+                double branchScale = Math.pow(run.trunkWidth, 0.75) * 0.5;
                 Function<Double, Double> thicknessFunction =
                         CurveFunctions.radius(branchScale, 0.0, 0.1, 1.0, TimeCurve.QUADRATIC);
                 Function<Double, Double> pitchFunction =
@@ -212,8 +230,8 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                             .origin(origin)
                             .divergenceDecay(0.7)
                             .segments((int) (20 * p.quality))
-                            .height(trunkHeight * p.multiTrunkStartPoint)
-                            .width(trunkWidth)
+                            .height(run.trunkHeight * p.multiTrunkStartPoint)
+                            .width(run.trunkWidth)
                             .divergenceProbability(0.8)
                             .divergenceStrength(0.4)
                             .noiseSmooth(0.1)
@@ -229,14 +247,14 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                         if (point.y > stompStop.y) stompStop = point;
                     }
 
-                    Unloaded.addAll(SpiralUtil.generateVineWithSpiral(points, thicknessFunction, 7, 0.8f, radiusFunction, pitchFunction));
+                    SpiralUtil.generateVineWithSpiral(points, thicknessFunction, 7, 0.8f, radiusFunction, pitchFunction, wood);
                 }
 
                 for (int i = 0; i < p.multiTrunkNumber; i++) {
-                    trunkHeight = rnd.nextInt(p.trunkHeightRange.key(), p.trunkHeightRange.value());
-                    trunkWidth = rnd.nextInt((int) (p.trunkWidthRange.key() * 0.6), (int) (p.trunkWidthRange.value() * 0.6));
+                    run.trunkHeight = rnd.nextInt(p.trunkHeightRange.key(), p.trunkHeightRange.value());
+                    run.trunkWidth = rnd.nextInt((int) (p.trunkWidthRange.key() * 0.6), (int) (p.trunkWidthRange.value() * 0.6));
                     radiusFunction =
-                            CurveFunctions.radius((trunkWidth * 0.8) / 2, (trunkWidth * 0.8) / 4, 0.0, 1.0, TimeCurve.LINEAR);
+                            CurveFunctions.radius((run.trunkWidth * 0.8) / 2, (run.trunkWidth * 0.8) / 4, 0.0, 1.0, TimeCurve.LINEAR);
                     thicknessFunction =
                             CurveFunctions.radius(3.0, 1.0, 0.0, 1.0, TimeCurve.QUADRATIC);
                     pitchFunction =
@@ -249,8 +267,8 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                                     .type(new StraightPointFactory())
                                     .divergenceDecay(0.7)
                                     .segments((int) (20 * p.quality))
-                                    .height(trunkHeight)
-                                    .width(trunkWidth)
+                                    .height(run.trunkHeight)
+                                    .width(run.trunkWidth)
                                     .divergenceProbability(0.8)
                                     .divergenceStrength(0.4)
                                     .noiseSmooth(0.1)
@@ -268,20 +286,19 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                     }
 
                     Function<Double, Double> finalRadiusFunction = radiusFunction;
-                    int finalTrunkHeight1 = trunkHeight;
+                    int finalTrunkHeight1 = run.trunkHeight;
 
                     if (p.branchType != BranchingType.NO_BRANCHES) {
                         Function<Double, Double> finalThicknessFunction = thicknessFunction;
                         submitSubtask(sub -> generateBranches(sub, rnd.fork(rnd.nextLong()), points, finalTrunkHeight1, finalRadiusFunction, finalThicknessFunction, 1));
                     }
-                    Unloaded.addAll(SpiralUtil.generateVineWithSpiral(points2, thicknessFunction, 7, 0.8f, radiusFunction, pitchFunction));
+                    SpiralUtil.generateVineWithSpiral(points2, thicknessFunction, 7, 0.8f, radiusFunction, pitchFunction, wood);
                 }
-                yield Unloaded;
             }
             case SLANTED -> {
                 Function<Double, Double> radiusFunction =
-                        CurveFunctions.radius((double) trunkWidth / 2, 0.0, 0.1, 1.0, TimeCurve.QUADRATIC);
-                double branchScale = Math.pow(trunkWidth, 0.75) * 0.5;
+                        CurveFunctions.radius((double) run.trunkWidth / 2, 0.0, 0.1, 1.0, TimeCurve.QUADRATIC);
+                double branchScale = Math.pow(run.trunkWidth, 0.75) * 0.5;
                 Function<Double, Double> thicknessFunction =
                         CurveFunctions.radius(branchScale, 0.0, 0.1, 1.0, TimeCurve.QUADRATIC);
                 Function<Double, Double> pitchFunction =
@@ -294,8 +311,8 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                                 .origin(origin)
                                 .divergenceDecay(0.2)
                                 .segments((int) (20 * p.quality))
-                                .height(trunkHeight)
-                                .width(trunkWidth)
+                                .height(run.trunkHeight)
+                                .width(run.trunkWidth)
                                 .divergenceProbability(0.5)
                                 .divergenceStrength(0.4)
                                 .noiseSmooth(0.1)
@@ -307,15 +324,15 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                 points.addFirst(new Vec3(0, -3, 0).add(origin));
                 points.addFirst(new Vec3(0, -15, 0).add(origin));
 
-                int finalTrunkHeight1 = trunkHeight;
+                int finalTrunkHeight1 = run.trunkHeight;
                 if (p.branchType != BranchingType.NO_BRANCHES)
                     submitSubtask(sub -> generateBranches(sub, rnd.fork(rnd.nextLong()), points, finalTrunkHeight1, radiusFunction, thicknessFunction, 1));
-                yield SpiralUtil.generateVineWithSpiral(points, thicknessFunction, 7, 0.8f, radiusFunction, pitchFunction);
+                SpiralUtil.generateVineWithSpiral(points, thicknessFunction, 7, 0.8f, radiusFunction, pitchFunction, wood);
             }
             case TAPERED_SPINDLE -> {
                 Function<Double, Double> radiusFunction =
-                        CurveFunctions.radius((double) trunkWidth / 3, 0.0, 0.1, 1.0, TimeCurve.INVERTED_QUADRATIC);
-                double branchScale = Math.pow(trunkWidth, 0.75) * 0.5;
+                        CurveFunctions.radius((double) run.trunkWidth / 3, 0.0, 0.1, 1.0, TimeCurve.INVERTED_QUADRATIC);
+                double branchScale = Math.pow(run.trunkWidth, 0.75) * 0.5;
                 Function<Double, Double> thicknessFunction =
                         CurveFunctions.radius(branchScale, 0.0, 0.1, 1.0, TimeCurve.INVERTED_QUADRATIC);
                 Function<Double, Double> pitchFunction =
@@ -327,7 +344,7 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                                 .divergenceDecay(0.2 + p.randomness)
                                 .origin(origin)
                                 .segments((int) (30 * p.quality))
-                                .height(trunkHeight)
+                                .height(run.trunkHeight)
                                 .width(10)
                                 .divergenceProbability(0.5 + p.randomness)
                                 .divergenceStrength(0.4 + p.randomness)
@@ -346,7 +363,7 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                     for (int i = start; i < points.size(); i++) {
                         hehe.add(points.get(i));
                     }
-                    leafingPoints.put(hehe, 1);
+                    run.leafingPoints.put(hehe, 1);
                 }
 
                 if (p.taperedFuzz) {
@@ -442,28 +459,24 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                 if (p.branchType != BranchingType.NO_BRANCHES)
                     submitSubtask(sub -> generateBranches(sub, rnd.fork(rnd.nextLong()), points, finalTrunkHeight, radiusFunction, thicknessFunction, 1));
 
-                yield SpiralUtil.generateVineWithSpiral(points, thicknessFunction, 5, 0.8f, radiusFunction, pitchFunction);
+                SpiralUtil.generateVineWithSpiral(points, thicknessFunction, 5, 0.8f, radiusFunction, pitchFunction, wood);
             }
             case WILLOW -> {
                 var result = generateMultiRootSpiralTrunk(
-                        origin, 5, trunkWidth * 4, trunkHeight * 0.3,
-                        trunkHeight, trunkWidth, 0.5, 10, 2.2, 1.5, rnd
+                        origin, 5, run.trunkWidth * 4, run.trunkHeight * 0.3,
+                        run.trunkHeight, run.trunkWidth, 0.5, 10, 2.2, 1.5, rnd
                 );
 
                 if (p.branchType != BranchingType.NO_BRANCHES)
                     submitSubtask(sub -> generateBranches(sub, rnd.fork(rnd.nextLong()), result.getMainPath(), finalTrunkHeight, result.getTrunkRadiusFun(), result.getTrunkThicknessFun(), 1));
 
-                yield result.getVoxels();
+                result.getVoxels().forEach(wood::accept);
             }
-        };
-
-
-        for (var vec : UnOptimisedMemo) {
-            generator.guardAndStore(vec, p.woodMaterial, false);
         }
     }
 
     private void generateBranches(SubGenerator subGenerator, RandomSource rnd, List<Vec3> trunkPath, int startLength, Function<Double, Double> startWidth, Function<Double, Double> thickness, int curr) {
+        TreeRun run = runState();
         if (startLength < 1 || trunkPath == null || trunkPath.size() < 3) {
             LOGGER.print("Failed Check: sl: " + startLength + " tp: " + trunkPath);
             return;
@@ -588,19 +601,19 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                             cheesy, startRadius, startThickness, curr + 1));
                 }
 
+                var pitch = CurveFunctions.pitch(0.01, 0.05, 0.2, 1.0, TimeCurve.INVERTED_QUADRATIC);
                 if (p.leafType == LeafPopulationType.HANGING_FUZZY) {
-                    leafingPoints.put(SpiralUtil.generateVineWithSpiral(branch,
-                            startThickness, 7, 0.8f, startRadius,
-                            CurveFunctions.pitch(0.01, 0.05, 0.2, 1.0, TimeCurve.INVERTED_QUADRATIC)).stream().toList(), curr + 1);
+                    // voxelize once: the same blocks are the branch wood and the fuzz's leafing points
+                    VoxelSet voxels = new VoxelSet();
+                    SpiralUtil.generateVineWithSpiral(branch, startThickness, 7, 0.8f, startRadius, pitch, voxels);
+                    List<Vec3> fuzz = new ArrayList<>(voxels.size());
+                    voxels.forEach((x, y, z) -> fuzz.add(new Vec3(x, y, z)));
+                    run.leafingPoints.put(fuzz, curr + 1);
+                    voxels.forEach(subGenerator.blockSink(p.woodMaterial));
                 } else {
-                    leafingPoints.put(branch, curr + 1);
-                }
-
-                for (var pos : SpiralUtil.generateVineWithSpiral(branch,
-                        startThickness, 7, 0.8f, startRadius,
-                        CurveFunctions.pitch(0.01, 0.05, 0.2, 1.0, TimeCurve.INVERTED_QUADRATIC))
-                ) {
-                    subGenerator.guardAndStore(pos, p.woodMaterial, false);
+                    run.leafingPoints.put(branch, curr + 1);
+                    SpiralUtil.generateVineWithSpiral(branch, startThickness, 7, 0.8f, startRadius, pitch,
+                            subGenerator.blockSink(p.woodMaterial));
                 }
                 index++;
             }
@@ -608,14 +621,16 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
     }
 
     private void generateLeaves(SubGenerator subGenerator, RandomSource rnd) {
-        if (leafingPoints.isEmpty()) return;
+        TreeRun run = runState();
+        if (run.leafingPoints.isEmpty()) return;
 
         switch (p.leafType) {
             case HANGING -> {
                 int matCount = p.vineSequenceMaterial.size();
                 if (matCount == 0) return;
 
-                for (var entry : leafingPoints.entrySet()) {
+                List<Vec3> vinePoints = new ArrayList<>();
+                for (var entry : run.leafingPoints.entrySet()) {
                     var branch = entry.getKey();
                     if (branch == null || branch.isEmpty()) continue;
                     branch = BezierCurve.generatePoints(entry.getKey(), 200);
@@ -637,24 +652,26 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
 
                         int vineHeight = Math.max(
                                 1,
-                                (int) Math.round(trunkHeight * (heightFactor * p.vineHeight / entry.getValue()))
+                                (int) Math.round(run.trunkHeight * (heightFactor * p.vineHeight / entry.getValue()))
                         );
 
                         Vec3 base = branch.get(i);
                         placed++;
 
-                        var pts = CorePointsFactory.generate(
+                        vinePoints.clear();
+                        CorePointsFactory.generate(
                                 CorePointsFactory.Params.builder()
                                         .noiseStrength(0.7)
                                         .divergenceStrength(0.7)
                                         .noiseSmooth(0.1)
                                         .height(vineHeight)
                                         .segments(Math.max(8, Math.min(vineHeight * 8, 200)))
-                                        .build()
+                                        .build(),
+                                vinePoints
                         );
 
                         // smooth + resample by arc length to avoid irregular gaps/jumps
-                        pts = BezierCurve.generatePoints(pts, Math.min(200, Math.max(32, vineHeight * 8)));
+                        var pts = BezierCurve.generatePoints(vinePoints, Math.min(200, Math.max(32, vineHeight * 8)));
                         pts = resampleByArcLength(pts, Math.max(Math.min(vineHeight * 4, 200), 8));
 
                         // clamp y and ensure it ranges 0..vineHeight (prevents weird progress >1 or negative)
@@ -674,7 +691,8 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                 int matCount = p.vineSequenceMaterial.size();
                 if (matCount == 0) return;
 
-                for (var entry : leafingPoints.entrySet()) {
+                List<Vec3> pts = new ArrayList<>();
+                for (var entry : run.leafingPoints.entrySet()) {
                     var branch = entry.getKey();
                     if (branch == null || branch.isEmpty()) continue;
 
@@ -684,18 +702,20 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                         if (i - lastPlacedIndex < p.spacing) continue;
                         if (lastPlacedIndex >= p.maxVinePerBranch) break;
 
-                        int vineHeight = Math.max(2, (int) Math.round(trunkHeight * (rnd.nextDouble() * p.vineHeight))) / entry.getValue();
+                        int vineHeight = Math.max(2, (int) Math.round(run.trunkHeight * (rnd.nextDouble() * p.vineHeight))) / entry.getValue();
                         Vec3 base = branch.get(i);
                         lastPlacedIndex++;
 
-                        var pts = CorePointsFactory.generate(
+                        pts.clear();
+                        CorePointsFactory.generate(
                                 CorePointsFactory.Params.builder()
                                         .noiseStrength(0.2)
                                         .divergenceStrength(0.7)
                                         .noiseSmooth(0.1)
                                         .segments(vineHeight)
                                         .height(vineHeight)
-                                        .build()
+                                        .build(),
+                                pts
                         );
 
                         for (int j = 0; j < pts.size(); j++) {
@@ -746,7 +766,7 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
             }
             case MUSHROOMCAP -> {
                 Map<Vec3, Integer> capCenters = new HashMap<>();
-                for (var entry : leafingPoints.entrySet()) {
+                for (var entry : run.leafingPoints.entrySet()) {
                     var branch = entry.getKey();
                     if (branch == null || branch.isEmpty()) continue;
                     branch.stream()
@@ -828,7 +848,7 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                 }
             }
             case ON_BRANCH_TIP -> {
-                for (var entry : leafingPoints.entrySet()) {
+                for (var entry : run.leafingPoints.entrySet()) {
                     var branch = entry.getKey();
                     if (branch == null || branch.isEmpty()) continue;
 
@@ -906,7 +926,7 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                 }
             }
             case AROUND_ALL_BRANCHES -> {
-                for (var entry : leafingPoints.entrySet()) {
+                for (var entry : run.leafingPoints.entrySet()) {
                     var branch = entry.getKey();
                     if (branch == null || branch.isEmpty()) continue;
                     for (Vec3 pos : branch) {
@@ -933,7 +953,7 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                 int matCount = p.vineSequenceMaterial.size();
                 if (matCount == 0) return;
 
-                for (var entry : leafingPoints.entrySet()) {
+                for (var entry : run.leafingPoints.entrySet()) {
                     var branch = entry.getKey();
                     if (branch == null || branch.isEmpty()) continue;
                     for (Vec3 pos : branch) {
@@ -952,7 +972,7 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                         if (rnd.nextDouble() > p.leafPropagationChance) continue;
                         if (index > p.maxVinePerBranch) break;
                         if (i < index + (p.spacing / 2)) continue;
-                        int vineHeight = Math.max(1, (int) Math.round(trunkHeight * (rnd.nextDouble() * p.vineHeight)));
+                        int vineHeight = Math.max(1, (int) Math.round(run.trunkHeight * (rnd.nextDouble() * p.vineHeight)));
 
                         Vec3 base = branch.get(i);
                         index++;
@@ -997,11 +1017,11 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                 // Set true while debugging to force block placement (may overwrite). Set false for normal behavior.
                 final boolean FORCE_PLACE = true;
 
-                for (var entry : leafingPoints.entrySet()) {
+                for (var entry : run.leafingPoints.entrySet()) {
                     var branchUnprocessed = entry.getKey();
                     if (branchUnprocessed == null || branchUnprocessed.isEmpty()) continue;
                     final int extrusionMin = 2;
-                    final int extrusionMax = (int) Math.round(trunkHeight * 0.09) / Math.max(1, entry.getValue() - 1);
+                    final int extrusionMax = (int) Math.round(run.trunkHeight * 0.09) / Math.max(1, entry.getValue() - 1);
 
                     // reset per-branch spacing counter (important!)
                     int curr = -distance; // allow the first spawn if pi >= 0
@@ -1093,7 +1113,7 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
             case HANGING_MUSHROOM -> {
                 // --- find cap centers ---
                 Map<Vec3, Integer> capCenters = new HashMap<>();
-                for (var entry : leafingPoints.entrySet()) {
+                for (var entry : run.leafingPoints.entrySet()) {
                     var branch = entry.getKey();
                     if (branch == null || branch.isEmpty()) continue;
                     branch.stream().max(Comparator.comparingDouble(v -> v.y)).ifPresent(it -> capCenters.put(it, entry.getValue()));
@@ -1190,7 +1210,7 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                         // optional per-dangling spawn chance
                         if (rnd.nextDouble() > p.leafPropagationChance / 2) continue;
 
-                        int vineHeight = Math.max(1, (int) Math.round(trunkHeight * (rnd.nextDouble() * p.vineHeight)) / entry.getValue());
+                        int vineHeight = Math.max(1, (int) Math.round(run.trunkHeight * (rnd.nextDouble() * p.vineHeight)) / entry.getValue());
                         var points = CorePointsFactory.generate(
                                 CorePointsFactory.Params.builder()
                                         .noiseStrength(0.7)
@@ -1217,7 +1237,7 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                 } // end each cap center
             }
             case REALISTIC -> {
-                for (var entry : leafingPoints.entrySet()) {
+                for (var entry : run.leafingPoints.entrySet()) {
                     var branch = entry.getKey();
                     if (branch == null || branch.isEmpty()) continue;
 
@@ -1225,7 +1245,7 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
                     double realism = p.realism;
                     double decay = 0.7;
                     int depth = entry.getValue();
-                    int width = (int) Math.round((trunkWidth * 2) * Math.pow(decay, depth - 1));
+                    int width = (int) Math.round((run.trunkWidth * 2) * Math.pow(decay, depth - 1));
                     double density = 0.4 + realism * 0.5;           // 0.4 → 0.9
                     int refinement = 2 + (int) Math.round(realism * 3);  // 2 → 5
                     double hollow = 0.4 - realism * 0.3;            // 0.4 → 0.1
@@ -1250,7 +1270,7 @@ public class NoAIProceduralTreeGenerator<T> extends ProceduralStructureGenerator
 
             default -> {
                 // fallback: treat like AROUND_ALL_BRANCHES
-                for (var entry : leafingPoints.entrySet()) {
+                for (var entry : run.leafingPoints.entrySet()) {
                     var branch = entry.getKey();
                     if (branch == null || branch.isEmpty()) continue;
                     for (Vec3 pos : branch) {
@@ -5,6 +5,7 @@ import org.jetbrains.annotations.NotNull;
 import org.vicky.platform.utils.Vec3;
 import org.vicky.platform.world.PlatformBlockState;
 import org.vicky.platform.world.PlatformWorld;
+import org.vicky.utilities.ContextLogger.ContextLogger;
 import org.vicky.utilities.Pair;
 import org.vicky.vspe.BlockVec3i;
 import org.vicky.vspe.platform.systems.dimension.StructureUtils.CurveFunctions;
@@ -86,12 +87,15 @@ public class ThesisTreeStructureGenerator<T> extends ProceduralStructureGenerato
         gd.forTrunk = forTrunk;
 
         // Create the thesis generator (world-agnostic)
-        ThesisBasedTreeGenerator tb = new ThesisBasedTreeGenerator(gd, localSeed ^ rnd.nextLong(), LOGGER);
+        ThesisBasedTreeGenerator tb = new ThesisBasedTreeGenerator(gd, localSeed ^ rnd.nextLong(), LOGGER, !isProduction);
 
         // init root at origin pointing upwards
         tb.initRoot(origin, new Vec3(0f, 1f, 0f), (float) trunkWidth);
 
         tb.simulateToAge(treeAge);
+        if (!isProduction) {
+            LOGGER.print("Simulated tree: " + tb.getStats(), ContextLogger.LogType.AMBIENCE);
+        }
 
         // Convert the tree nodes into block placements
         // Map primitive trunkBlockId -> PlatformBlockState<T>
@@ -104,7 +108,7 @@ public class ThesisTreeStructureGenerator<T> extends ProceduralStructureGenerato
         submitSubtask((sub)-> stampBranchRecursively(sub, tb.getRoot(), trunkBlockMaterial));
 
         // Flush buffered placements into outPlacements/map by running the configured flush
-        if (flush != null) flush.run();
+        flush();
 
         // The generate(...) wrapper will handle merging subtasks and returning the final GenerationResult
     }
@@ -168,21 +172,17 @@ public class ThesisTreeStructureGenerator<T> extends ProceduralStructureGenerato
         Function<Double, Double> pitchFunction =
                 CurveFunctions.pitch(0.03, 0.1, 0.2, 1.0, TimeCurve.EASE_IN_OUT_CUBIC);
 
-        // Pass your control points straight to the spiral generator
-        Set<Vec3> generated = SpiralUtil.generateVineWithSpiralNoBezier(
+        // Pass your control points straight to the spiral generator, which stamps them into the world
+        SpiralUtil.generateVineWithSpiralNoBezier(
                 new LinkedList<>(node.getControlPoints()),
                 thicknessFunction,
                 7,
                 0.8f,
                 radiusFunction,
-                pitchFunction
+                pitchFunction,
+                subGen.blockSink(state)
         );
 
-        // Stamp them into the world
-        for (Vec3 v : generated) {
-            subGen.guardAndStore(v, state, true);
-        }
-
 
         final double nodeLength = SpiralUtil.findLengthOfPath(new ArrayList<>(node.getControlPoints()));
 
@@ -385,15 +385,15 @@ public class ThesisTreeStructureGenerator<T> extends ProceduralStructureGenerato
                 var stalkLength = leafLength * leafInformation.leafStalkLength;
                 startingPoint = start.add(direction.multiply(stalkLength));
                 double branchScale = Math.pow(leafWidth * 0.34, 0.75) * 0.5;
-                Set<Vec3> generated = SpiralUtil.generateVineWithSpiralNoBezier(
+                SpiralUtil.generateVineWithSpiralNoBezier(
                         new LinkedList<>(List.of(start, startingPoint)),
                         CurveFunctions.radius(branchScale, branchScale * 0.3, 0.0, 1.0, TimeCurve.INVERTED_QUADRATIC),
                         7,
                         0.8f,
                         CurveFunctions.radius(leafWidth * 0.34, leafWidth * 0.34 * 0.3, 0.0, 1.0, TimeCurve.INVERTED_QUADRATIC),
-                        CurveFunctions.pitch(0.0, 0.05, 0.0, 1.0, TimeCurve.INVERTED_QUADRATIC)
+                        CurveFunctions.pitch(0.0, 0.05, 0.0, 1.0, TimeCurve.INVERTED_QUADRATIC),
+                        subGen.blockSink(leafMaterial)
                 );
-                generated.forEach(it -> subGen.guardAndStore(it, leafMaterial, false));
             }
 
 
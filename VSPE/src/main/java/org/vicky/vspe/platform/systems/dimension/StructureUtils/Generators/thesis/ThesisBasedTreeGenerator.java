@@ -1,5 +1,7 @@
 package org.vicky.vspe.platform.systems.dimension.StructureUtils.Generators.thesis;
 
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,7 +31,9 @@ public class ThesisBasedTreeGenerator {
     protected final GrowthData growthData;
     private final Map<Long, TreeNode> cachedBranches = new HashMap<>();
     private final Vec3 global_gravity;
-    private final boolean debug = true;
+    // per-node trace logging; off in production so none of the trace strings are ever built
+    private final boolean trace;
+    private final SimulationStats stats = new SimulationStats();
     private final ContextLogger logger;
     int send = 0;
     private long lastNodeId = 0;
@@ -44,15 +48,26 @@ public class ThesisBasedTreeGenerator {
     private double influenceRadiusAdaptive;
     private double vigorRadiusAdaptive;
     private double killRadiusAdaptive;
+    // rebuilt by every pass that matches attractors against tips
+    private final TipGrid tipGrid = new TipGrid();
 
     // === Public API ===
     private double targetAge;
 
 
     public ThesisBasedTreeGenerator(@NotNull GrowthData growthData, long seed, ContextLogger logger) {
+        this(growthData, seed, logger, true);
+    }
+
+    /**
+     * @param trace whether to log every tick and node visit; pass {@code !isProduction}. Counters are
+     *              collected into {@link #getStats()} either way.
+     */
+    public ThesisBasedTreeGenerator(@NotNull GrowthData growthData, long seed, ContextLogger logger, boolean trace) {
         this.growthData = growthData;
         this.seed = seed;
         this.logger = logger;
+        this.trace = trace;
         if (growthData.overrides.contains(Overrides.GlobalOverrides.OVERRIDE_GRAVITY)) {
             this.global_gravity = growthData.overriden_gravity;
         } else {
@@ -113,17 +128,24 @@ public class ThesisBasedTreeGenerator {
         root.vigor = growthData.initialVigor;
         totalEnergy = root.vigor;
         cachedBranches.put(root.id, root);
-        if (debug) {
+        if (trace) {
             log("initRoot -> " + nodeShort(root) + " startPos=" + startPos);
+            log("Tree exhibits: " + String.join(", ",
+                    growthData.overrides.stream().map(Objects::toString).toArray(String[]::new)));
         }
-        log("Tree exhibits: " + String.join(", ",
-                growthData.overrides.stream().map(Objects::toString).toArray(String[]::new)), true);
     }
 
     public TreeNode getRoot() {
         return root;
     }
 
+    /**
+     * Counters for the ticks simulated so far.
+     */
+    public SimulationStats getStats() {
+        return stats;
+    }
+
     public int getAge() {
         return age;
     }
@@ -187,17 +209,18 @@ public class ThesisBasedTreeGenerator {
         killRadiusAdaptive = growthData.killRadius + currentHeight * 0.10;
 
         ensureattractorPoolUpToDate();
+        stats.beginTick(attractorPool.size(), lastNodeId);
 
         for (TreeNode n : cachedBranches.values()) {
             n.vigor *= growthData.vigorDecay; // 2% decay per tick
         }
 
-        log("=== simulateTick START age=" + age + " ===");
+        if (trace) log("=== simulateTick START age=" + age + " ===");
 
         if (root.vigor <= 0.4f) {
             root.vigor = growthData.initialVigor * 0.43f;
             // log("⚠️ Root had zero vigor; assigning initialVigor=" + growthData.initialVigor);
-        } else {
+        } else if (trace) {
             log("🌱 Root vigor=" + root.vigor);
         }
 
@@ -209,9 +232,21 @@ public class ThesisBasedTreeGenerator {
         shedBranches(root);
         // logTreeStructure(root, ">> ");
 
-        logTickSummary();
-        dumpSummary();
-        log("=== simulateTick END ===\n");
+        int alive = 0, buds = 0, dead = 0;
+        for (TreeNode n : cachedBranches.values()) {
+            switch (n.nodeStatus) {
+                case ALIVE -> alive++;
+                case BUD -> buds++;
+                case DEAD -> dead++;
+            }
+        }
+        stats.endTick(cachedBranches.size(), alive, buds, dead, attractorPool.size(), lastNodeId);
+
+        if (trace) {
+            logTickSummary();
+            dumpSummary();
+            log("=== simulateTick END ===\n");
+        }
     }
 
     private void ensureattractorPoolUpToDate() {
@@ -244,10 +279,11 @@ public class ThesisBasedTreeGenerator {
         queue.add(root);
         while (!queue.isEmpty()) {
             var current = queue.poll();
-            log("Shreading -> " + current.id);
+            if (trace) log("Shreading -> " + current.id);
 
             if (current.nodeStatus == NodeStatus.DEAD) {
-                log("Shreaded -> " + current.id);
+                if (trace) log("Shreaded -> " + current.id);
+                stats.shedThisTick++;
                 current.parent.children.remove(current);
                 current.children.forEach(it -> it.nodeStatus = NodeStatus.DEAD);
             }
@@ -257,12 +293,12 @@ public class ThesisBasedTreeGenerator {
     }
 
     private void addShoots(TreeNode root) {
-        if (age > 10 && send < 1) {
+        if (trace && age > 10 && send < 1) {
             log("attractorPool: " + attractorPool);
             send++;
         }
         pruneConsumedattractorPool(root, attractorPool);
-        if (age > 10 && send < 2) {
+        if (trace && age > 10 && send < 2) {
             log("attractorPoolAfter: " + attractorPool);
             send++;
         }
@@ -282,8 +318,10 @@ public class ThesisBasedTreeGenerator {
                 allowedKillDist = killRadiusAdaptive;
             }
 
-            log("Polling -> " + current.id);
-            logTreeStructure(current, ">> ");
+            if (trace) {
+                log("Polling -> " + current.id);
+                logTreeStructure(current, ">> ");
+            }
             Random rnd = new Random(seed ^ (current.id * 31L) ^ (this.age * 7919L));
             cachedBranches.putIfAbsent(current.id, current);
             if (current.order == 0) {
@@ -294,7 +332,7 @@ public class ThesisBasedTreeGenerator {
                 if (age == growthData.multiTrunkismAge
                         && growthData.overrides.contains(Overrides.TrunkOverrides.MULTI_TRUNKISM)
                         && current == root) {
-                    log("MultiTrunkism Enabled for Root Node");
+                    if (trace) log("MultiTrunkism Enabled for Root Node");
                     current.canGrowTaller = false;
                     Vec3 tip = current.getControlPoints().getLast();
 
@@ -363,8 +401,8 @@ public class ThesisBasedTreeGenerator {
                     // now extend
                     Vec3 nextPoint = last
                             .add(newDir.multiply(growthData.baseLength * Math.max(0.02, current.vigor)));
-                    log("CurrPoint: " + last + ", New Point: " + nextPoint);
-                    log("Length: " + growthData.baseLength);
+                    if (trace) log("CurrPoint: " + last + ", New Point: " + nextPoint);
+                    if (trace) log("Length: " + growthData.baseLength);
                     current.controlPoints.add(nextPoint);
                     current.direction = newDir;
                 }
@@ -372,10 +410,10 @@ public class ThesisBasedTreeGenerator {
                 var localPool = owned.getOrDefault(current, new ArrayList<>());
                 long nearbyattractorPool = localPool.size();
                 boolean rndChance = rnd.nextDouble() < growthData.budProbability;
-                log(Arrays.toString(current.children.toArray()));
+                if (trace) log(Arrays.toString(current.children.toArray()));
                 boolean childrenNotClose = current.children.isEmpty() || current.children.getLast().firstPoint()
                         .distance(current.getControlPoints().getLast()) > growthData.distanceBetweenChildren;
-                logf("attractorPool: %s %s, ChildSize: %s, RndChance: %s, Distance: %s%n", nearbyattractorPool, nearbyattractorPool > 3, current.children.size() < growthData.maxKids, rndChance, childrenNotClose);
+                if (trace) logf("attractorPool: %s %s, ChildSize: %s, RndChance: %s, Distance: %s%n", nearbyattractorPool, nearbyattractorPool > 3, current.children.size() < growthData.maxKids, rndChance, childrenNotClose);
                 if (nearbyattractorPool > 3 && rndChance && childrenNotClose && age > (
                         growthData.overrides.contains(Overrides.TrunkOverrides.MULTI_TRUNKISM) ?
                                 growthData.multiTrunkismAge + growthData.minSplittingAge : growthData.minSplittingAge)
@@ -404,7 +442,7 @@ public class ThesisBasedTreeGenerator {
                     attractionDir = attractionDir.lerp(new Vec3(0, 1, 0), 0.2).normalize();
 
                     // create the branch
-                    log("Adding branch: dir -> " + attractionDir);
+                    if (trace) log("Adding branch: dir -> " + attractionDir);
                     var dividor = CurveFunctions.radius(current.baseRadius, 0.0, 0.0, 1.0, growthData.forTrunk);
                     TreeNode branch = new TreeNode(current, lastNodeId++, budOrigin, attractionDir, dividor.apply(0.90).floatValue());
                     branch.vigor = current.vigor * (growthData.vigorDecay * 0.8f);
@@ -580,7 +618,7 @@ public class ThesisBasedTreeGenerator {
                 effectiveBudProb = Math.max(0.01, effectiveBudProb); // never zero if you want some chance
                 boolean rndChance = rnd.nextDouble() < (effectiveBudProb * current.vigor);
                 boolean age = this.age - current.createdAt > growthData.minSplittingAge;
-                log(String.format("Child info >> attractorPool: %s %s, Age: %s ChildSize: %s, RndChance: %s, Distance: %s, Order: %s, Sen: %s", nearbyattractorPool, nearbyattractorPool > 3, age, current.children.size() < growthData.maxKids, rndChance, childrenNotClose, current.order < growthData.maxDepth, sen));
+                if (trace) log(String.format("Child info >> attractorPool: %s %s, Age: %s ChildSize: %s, RndChance: %s, Distance: %s, Order: %s, Sen: %s", nearbyattractorPool, nearbyattractorPool > 3, age, current.children.size() < growthData.maxKids, rndChance, childrenNotClose, current.order < growthData.maxDepth, sen));
                 if (nearbyattractorPool > 8 && childrenNotClose
                         && rndChance && age
                         && current.children.size() < growthData.maxKids * (1.0 + 0.5 * Math.log1p(1.0 / current.order))
@@ -606,7 +644,7 @@ public class ThesisBasedTreeGenerator {
                     bud.vigor = Math.min(1.0f, (float) (current.vigor * Math.sqrt(growthData.vigorDecay)));
                     bud.createdAt = this.age;
 
-                    log("Adding new branch toward attractorPool: dir -> " + attractionDir);
+                    if (trace) log("Adding new branch toward attractorPool: dir -> " + attractionDir);
 
                     current.children.add(bud);
                     queue.addAll(current.children);
@@ -655,35 +693,38 @@ public class ThesisBasedTreeGenerator {
                 child.baseRadius = Math.max(growthData.minRadius,
                         Math.min(child.baseRadius, maxPossible));
 
-                log(String.format("id=%s, hf=%.3f, vb=%.3f, target=%.3f, cbr=%.3f",
+                if (trace) log(String.format("id=%s, hf=%.3f, vb=%.3f, target=%.3f, cbr=%.3f",
                         child.id, heightFactor, vigorBoost, targetChildRadius, child.baseRadius));
             }
         }
     }
 
     private void pruneConsumedattractorPool(TreeNode root, List<Vec3> attractorPool) {
-        // collect all attractorPool that should be removed
-        Set<Vec3> toRemove = new HashSet<>();
-        collectConsumedattractorPool(root, attractorPool, toRemove);
+        if (attractorPool.isEmpty()) return;
+        // collect the tips that consume attractorPool
+        List<Vec3> tips = new ArrayList<>();
+        collectConsumingTips(root, tips);
+        if (tips.isEmpty()) return;
+        tipGrid.rebuild(tips, killRadiusAdaptive);
 
         // remove in one go for efficiency
-        attractorPool.removeAll(toRemove);
+        attractorPool.removeIf(a -> {
+            TIntArrayList near = tipGrid.near(a, killRadiusAdaptive);
+            for (int i = 0; i < near.size(); i++) {
+                if (a.distance(tips.get(near.get(i))) < killRadiusAdaptive) return true;
+            }
+            return false;
+        });
     }
 
-    private void collectConsumedattractorPool(TreeNode node, List<Vec3> attractorPool, Set<Vec3> toRemove) {
+    private void collectConsumingTips(TreeNode node, List<Vec3> tips) {
         if (node.nodeStatus == NodeStatus.DEAD) return;
 
-        Vec3 tip = node.getControlPoints().getLast();
-
-        for (Vec3 a : attractorPool) {
-            if (a.distance(tip) < killRadiusAdaptive) {
-                toRemove.add(a);
-            }
-        }
+        tips.add(node.getControlPoints().getLast());
 
         // recurse into children
         for (TreeNode child : node.children) {
-            collectConsumedattractorPool(child, attractorPool, toRemove);
+            collectConsumingTips(child, tips);
         }
     }
 
@@ -771,16 +812,8 @@ public class ThesisBasedTreeGenerator {
     }
 
     private void logTickSummary() {
-        int alive = 0, buds = 0, dead = 0;
-        for (TreeNode n : cachedBranches.values()) {
-            switch (n.nodeStatus) {
-                case ALIVE -> alive++;
-                case BUD -> buds++;
-                case DEAD -> dead++;
-            }
-        }
         log(String.format("TICK %d SUMMARY: nodes=%d alive=%d buds=%d dead=%d maxOrder=%d",
-                age, cachedBranches.size(), alive, buds, dead, growthData.maxDepth));
+                age, stats.nodes, stats.alive, stats.buds, stats.dead, growthData.maxDepth));
     }
 
     private void logf(String message, Object...objects) {
@@ -792,7 +825,7 @@ public class ThesisBasedTreeGenerator {
     }
 
     private void log(String s, boolean mustPrint) {
-        if (debug || mustPrint) logger.print("ThesisTree@" + age + " " + s, ContextLogger.LogType.AMBIENCE);
+        if (trace || mustPrint) logger.print("ThesisTree@" + age + " " + s, ContextLogger.LogType.AMBIENCE);
     }
 
     private String nodeShort(TreeNode n) {
@@ -802,7 +835,6 @@ public class ThesisBasedTreeGenerator {
     }
 
     private void dumpSummary() {
-        if (!debug) return;
         log("SUMMARY: cachedBranches.size=" + cachedBranches.size() + " lastNodeId=" + lastNodeId + " maxOrder=" + growthData.maxDepth);
     }
 
@@ -822,11 +854,17 @@ public class ThesisBasedTreeGenerator {
         if (tips.isEmpty() || pool.isEmpty()) return Collections.emptyMap();
 
         // precompute tip positions & directions to avoid repeated calls
+        List<Vec3> tipPositions = new ArrayList<>(tips.size());
+        for (TreeNode tip : tips) tipPositions.add(tip.tip());
+        tipGrid.rebuild(tipPositions, influenceRadiusAdaptive);
+
         for (Vec3 attractor : pool) {
-            // gather candidates that can see this attractor
+            // gather candidates that can see this attractor; near() keeps list order so ties resolve as before
             List<Candidate> candidates = new ArrayList<>();
-            for (TreeNode tip : tips) {
-                Vec3 tipPos = tip.tip();
+            TIntArrayList near = tipGrid.near(attractor, influenceRadiusAdaptive);
+            for (int k = 0; k < near.size(); k++) {
+                TreeNode tip = tips.get(near.get(k));
+                Vec3 tipPos = tipPositions.get(near.get(k));
                 double dist = tipPos.distance(attractor);
                 if (dist > influenceRadiusAdaptive) continue; // out of reach
 
@@ -980,6 +1018,161 @@ public class ThesisBasedTreeGenerator {
     private record Candidate(TreeNode tip, double score) {
     }
 
+    /**
+     * Uniform grid over a list of positions, with cells as wide as the query radius so a query
+     * only visits the 3x3x3 cells around the query point instead of every position.
+     */
+    private static final class TipGrid {
+        private final TLongObjectHashMap<TIntArrayList> cells = new TLongObjectHashMap<>();
+        private final TIntArrayList hits = new TIntArrayList();
+        private double cellSize = 1.0;
+
+        void rebuild(List<Vec3> positions, double cellSize) {
+            cells.clear();
+            this.cellSize = Math.max(cellSize, 1e-3);
+            for (int i = 0; i < positions.size(); i++) {
+                Vec3 p = positions.get(i);
+                long key = key(cell(p.x), cell(p.y), cell(p.z));
+                TIntArrayList bucket = cells.get(key);
+                if (bucket == null) {
+                    bucket = new TIntArrayList(4);
+                    cells.put(key, bucket);
+                }
+                bucket.add(i);
+            }
+        }
+
+        /**
+         * Indices (ascending) of every position in a cell overlapping the cube of half-width
+         * {@code radius} around {@code p}. Callers still do the exact distance test. The returned
+         * list is reused by the next call.
+         */
+        TIntArrayList near(Vec3 p, double radius) {
+            hits.resetQuick();
+            radius += 1e-9 * (1.0 + radius); // keep rounding at the exact radius from dropping a cell
+            int x0 = cell(p.x - radius), x1 = cell(p.x + radius);
+            int y0 = cell(p.y - radius), y1 = cell(p.y + radius);
+            int z0 = cell(p.z - radius), z1 = cell(p.z + radius);
+            for (int x = x0; x <= x1; x++) {
+                for (int y = y0; y <= y1; y++) {
+                    for (int z = z0; z <= z1; z++) {
+                        TIntArrayList bucket = cells.get(key(x, y, z));
+                        if (bucket != null) hits.addAll(bucket);
+                    }
+                }
+            }
+            hits.sort();
+            return hits;
+        }
+
+        private int cell(double v) {
+            return (int) Math.floor(v / cellSize);
+        }
+
+        private static long key(int x, int y, int z) {
+            return ((long) (x & 0x1FFFFF) << 42) | ((long) (y & 0x1FFFFF) << 21) | (z & 0x1FFFFF);
+        }
+    }
+
+    /**
+     * Counters collected while simulating: totals since the generator was created, plus the state
+     * after the most recent tick. Cheap enough to keep on in production.
+     */
+    public static final class SimulationStats {
+        private int ticks;
+        private long shoots;
+        private long consumed;
+        private long shed;
+        private int nodes, alive, buds, dead, attractors;
+        private int lastShoots, lastConsumed, lastShed;
+
+        // per-tick scratch
+        private int attractorsAtStart;
+        private long nodeIdAtStart;
+        private int shedThisTick;
+
+        void beginTick(int attractors, long nextNodeId) {
+            attractorsAtStart = attractors;
+            nodeIdAtStart = nextNodeId;
+            shedThisTick = 0;
+        }
+
+        void endTick(int nodes, int alive, int buds, int dead, int attractors, long nextNodeId) {
+            ticks++;
+            this.nodes = nodes;
+            this.alive = alive;
+            this.buds = buds;
+            this.dead = dead;
+            this.attractors = attractors;
+            // the pool is only topped up before beginTick, so within a tick it can only shrink
+            lastConsumed = Math.max(0, attractorsAtStart - attractors);
+            lastShoots = (int) (nextNodeId - nodeIdAtStart);
+            lastShed = shedThisTick;
+            consumed += lastConsumed;
+            shoots += lastShoots;
+            shed += lastShed;
+        }
+
+        public int ticks() {
+            return ticks;
+        }
+
+        /** Shoots (new nodes) created over all ticks. */
+        public long shoots() {
+            return shoots;
+        }
+
+        /** Attractors consumed by tips over all ticks. */
+        public long consumedAttractors() {
+            return consumed;
+        }
+
+        /** Dead nodes detached from their parents over all ticks. */
+        public long shed() {
+            return shed;
+        }
+
+        public int nodes() {
+            return nodes;
+        }
+
+        public int aliveNodes() {
+            return alive;
+        }
+
+        public int budNodes() {
+            return buds;
+        }
+
+        public int deadNodes() {
+            return dead;
+        }
+
+        /** Attractors left in the pool after the last tick. */
+        public int attractors() {
+            return attractors;
+        }
+
+        public int lastTickShoots() {
+            return lastShoots;
+        }
+
+        public int lastTickConsumed() {
+            return lastConsumed;
+        }
+
+        public int lastTickShed() {
+            return lastShed;
+        }
+
+        @Override
+        public String toString() {
+            return "SimulationStats{ticks=" + ticks + ", nodes=" + nodes + " (alive=" + alive + ", buds=" + buds
+                    + ", dead=" + dead + "), attractors=" + attractors + ", shoots=" + shoots
+                    + ", consumed=" + consumed + ", shed=" + shed + "}";
+        }
+    }
+
     private static class AttractorScore {
         final Vec3 attractor;
         final double score;
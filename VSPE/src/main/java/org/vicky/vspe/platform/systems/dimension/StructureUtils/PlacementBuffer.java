@@ -0,0 +1,176 @@
+package org.vicky.vspe.platform.systems.dimension.StructureUtils;
+
+import gnu.trove.map.hash.TLongIntHashMap;
+import org.vicky.platform.utils.Vec3;
+import org.vicky.platform.world.PlatformBlockState;
+import org.vicky.platform.world.PlatformWorld;
+import org.vicky.vspe.platform.systems.dimension.vspeChunkGenerator.BlockPlacement;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BiConsumer;
+
+/**
+ * Growable scratch storage for queued placements: encoded positions, block states, actions and
+ * an open-addressing position -> slot index used both for de-duplication and for constant-time
+ * lookups and removals. Buffers start small, double as a structure grows and are recycled
+ * through a size-classed pool, so memory follows the size of what is being generated rather than
+ * the number of generator instances.
+ * <p>
+ * A buffer belongs to one generation run at a time: lease it with {@link #lease(int)} and hand it
+ * back with {@link #release()} once it has been drained. It is not thread-safe by itself; a run
+ * whose buffer is read by its subtasks synchronises on the buffer.
+ */
+final class PlacementBuffer<T> {
+    private static final int MIN_SHIFT = 10;  // 1024 entries
+    private static final int MAX_SHIFT = 20;  // covers ProceduralStructureGenerator.DEFAULT_BATCH
+    private static final int MAX_PER_CLASS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    // rough footprint of one entry: key + two references + ~2 index slots (long key, int value, state byte)
+    private static final int BYTES_PER_ENTRY = 8 + 2 * 4 + 2 * 13;
+    // retained bytes allowed per size class; the top classes end up keeping only one or two buffers
+    private static final long POOL_BYTES_PER_CLASS = 64L << 20;
+
+    @SuppressWarnings("unchecked")
+    private static final ConcurrentLinkedQueue<PlacementBuffer<?>>[] POOL = new ConcurrentLinkedQueue[MAX_SHIFT - MIN_SHIFT + 1];
+    private static final AtomicIntegerArray POOLED = new AtomicIntegerArray(POOL.length);
+
+    static {
+        for (int i = 0; i < POOL.length; i++) POOL[i] = new ConcurrentLinkedQueue<>();
+    }
+
+    long[] posKeys;
+    PlatformBlockState<T>[] states;
+    BiConsumer<PlatformWorld<T, ?>, Vec3>[] actions;
+    // encoded position -> slot in the arrays above; removed slots are tombstoned with key -1
+    private final TLongIntHashMap index;
+    int size;
+    // largest size reached since the last lease, used as the sizing hint for the next one
+    private int highWater;
+
+    @SuppressWarnings("unchecked")
+    private PlacementBuffer(int capacity) {
+        this.posKeys = new long[capacity];
+        this.states = (PlatformBlockState<T>[]) new PlatformBlockState[capacity];
+        this.actions = (BiConsumer<PlatformWorld<T, ?>, Vec3>[]) new BiConsumer[capacity];
+        this.index = new TLongIntHashMap(capacity, 0.5f, Long.MIN_VALUE, -1);
+    }
+
+    /**
+     * Takes the smallest pooled buffer that can hold {@code expected} entries without growing,
+     * or allocates a new one sized for it.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> PlacementBuffer<T> lease(int expected) {
+        int cls = sizeClass(expected);
+        for (int c = cls; c < POOL.length; c++) {
+            PlacementBuffer<?> b = POOL[c].poll();
+            if (b != null) {
+                POOLED.decrementAndGet(c);
+                b.highWater = 0;
+                return (PlacementBuffer<T>) b;
+            }
+        }
+        return new PlacementBuffer<>(1 << (cls + MIN_SHIFT));
+    }
+
+    /**
+     * Clears the buffer and returns it to the pool. Buffers beyond the per-class limit, or grown past
+     * the largest class, are dropped.
+     */
+    void release() {
+        clear();
+        if (posKeys.length > 1 << MAX_SHIFT) return;
+        int cls = sizeClass(posKeys.length);
+        if (POOLED.incrementAndGet(cls) > limitFor(cls)) {
+            POOLED.decrementAndGet(cls);
+            return;
+        }
+        POOL[cls].offer(this);
+    }
+
+    int highWater() {
+        return highWater;
+    }
+
+    /**
+     * Queues a state or action at {@code key} unless the position was already queued.
+     *
+     * @return true if the entry was added
+     */
+    boolean store(long key, PlatformBlockState<T> st, BiConsumer<PlatformWorld<T, ?>, Vec3> act) {
+        if (size == posKeys.length) grow();
+        if (index.putIfAbsent(key, size) != -1) return false;
+        int idx = size++;
+        posKeys[idx] = key;
+        states[idx] = st;
+        actions[idx] = act;
+        if (size > highWater) highWater = size;
+        return true;
+    }
+
+    /** State queued at {@code key}, or null if nothing (or only an action) is queued there. */
+    PlatformBlockState<T> stateAt(long key) {
+        int i = index.get(key);
+        return i >= 0 ? states[i] : null;
+    }
+
+    /** Drops the queued entry at {@code key}, leaving a tombstone in its slot. */
+    void remove(long key) {
+        int i = index.remove(key);
+        if (i < 0) return;
+        posKeys[i] = -1;
+        actions[i] = null;
+        states[i] = null;
+    }
+
+    /**
+     * Moves every live entry into the given containers and empties the buffer.
+     */
+    void drainTo(List<BlockPlacement<T>> placements, Map<Long, BiConsumer<PlatformWorld<T, ?>, Vec3>> actionMap) {
+        int total = size;
+        for (int i = 0; i < total; i++) {
+            long key = posKeys[i];
+            if (key == -1) continue;
+            if (states[i] != null) {
+                placements.add(new BlockPlacement<>(
+                        ProceduralStructureGenerator.decodeX(key),
+                        ProceduralStructureGenerator.decodeY(key),
+                        ProceduralStructureGenerator.decodeZ(key),
+                        states[i], null));
+            } else if (actions[i] != null) {
+                actionMap.put(key, actions[i]);
+            }
+        }
+        clear();
+    }
+
+    void clear() {
+        // drop references so pooled buffers don't pin block states or lambdas
+        Arrays.fill(states, 0, size, null);
+        Arrays.fill(actions, 0, size, null);
+        size = 0;
+        index.clear();
+    }
+
+    private void grow() {
+        int cap = posKeys.length << 1;
+        posKeys = Arrays.copyOf(posKeys, cap);
+        states = Arrays.copyOf(states, cap);
+        actions = Arrays.copyOf(actions, cap);
+    }
+
+    /** How many buffers of class {@code cls} the pool keeps, bounded by {@link #POOL_BYTES_PER_CLASS}. */
+    private static int limitFor(int cls) {
+        long bytes = (long) BYTES_PER_ENTRY << (cls + MIN_SHIFT);
+        return (int) Math.max(1, Math.min(MAX_PER_CLASS, POOL_BYTES_PER_CLASS / bytes));
+    }
+
+    private static int sizeClass(int entries) {
+        int n = Math.max(entries, 1 << MIN_SHIFT);
+        int shift = 32 - Integer.numberOfLeadingZeros(n - 1); // ceil(log2(n))
+        return Math.min(shift, MAX_SHIFT) - MIN_SHIFT;
+    }
+}
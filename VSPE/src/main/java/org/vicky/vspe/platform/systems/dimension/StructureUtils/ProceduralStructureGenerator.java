@@ -1,6 +1,6 @@
 package org.vicky.vspe.platform.systems.dimension.StructureUtils;
 
-import gnu.trove.set.hash.TLongHashSet;
+import gnu.trove.map.hash.TLongIntHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.vicky.platform.PlatformPlugin;
 import org.vicky.platform.utils.Vec3;
@@ -14,9 +14,9 @@ import org.vicky.vspe.platform.systems.dimension.vspeChunkGenerator.RandomSource
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import static java.lang.Math.cos;
 import static java.lang.Math.sin;
@@ -28,7 +28,7 @@ import static java.lang.Math.sin;
  * Subclasses:
  * - call prepareFlush() when beginning generation
  * - use guardAndStore(...) and guardAndAction(...) as before
- * - call flush.run() if they don't use the helper generate(...) wrapper
+ * - call flush() if they don't use the helper generate(...) wrapper
  * <p>
  * Use the provided generate(...) signature which will call prepareFlush() and flush for you.
  */
@@ -37,6 +37,8 @@ public abstract class ProceduralStructureGenerator<T> {
     protected static final int BIT_SIZE = 21;
     protected static final int BIAS     = 1 << (BIT_SIZE - 1);
     protected static final int MASK     = (1 << BIT_SIZE) - 1;
+    // total placements in a merge batch above which keys are encoded in parallel
+    private static final int PARALLEL_MERGE_THRESHOLD = 65_536;
     protected static final ContextLogger LOGGER =
             new AsyncContextLogger(ContextLogger.ContextType.SUB_SYSTEM,
             new Object() {
@@ -47,30 +49,83 @@ public abstract class ProceduralStructureGenerator<T> {
         return t;
     });
 
-    protected final long[] posKeys = new long[DEFAULT_BATCH * 3];
-
-    @SuppressWarnings("unchecked")
-    protected final PlatformBlockState<T>[] states = (PlatformBlockState<T>[]) new PlatformBlockState[DEFAULT_BATCH * 3];
-
-    @SuppressWarnings("unchecked")
-    // actions that used to be executed directly now get collected in the GenerationResult.actionMap
-    protected final BiConsumer<PlatformWorld<T, ?>, Vec3>[] actions = (BiConsumer<PlatformWorld<T, ?>, Vec3>[]) new BiConsumer[DEFAULT_BATCH * 3];
-
-    protected final TLongHashSet cache = new TLongHashSet(DEFAULT_BATCH * 3);
-    protected final AtomicInteger ptr = new AtomicInteger();
-    protected Runnable flush;
+    // context of the generate() call running on this thread (also set on its subtask threads)
+    private final ThreadLocal<GenerationContext> currentContext = new ThreadLocal<>();
+    // used when helpers are called outside generate(...)
+    private final GenerationContext idleContext;
+    // serialises generate() for subclasses that keep per-run state on the instance
+    private final Object generationLock = new Object();
+    // peak queue sizes of the last run, used to lease right-sized buffers next time
+    private volatile int sizeHint;
+    private volatile int subtaskSizeHint;
+    /**
+     * Random source of the most recent generate() call. Only meaningful for generators that don't
+     * {@link #supportsConcurrentGeneration() run concurrently}; others should use the rnd parameter.
+     */
     protected RandomSource rnd;
-    protected final List<Future<GenerationResult<T>>> subtaskFutures = Collections.synchronizedList(new ArrayList<>());
-    protected final List<Future<GenerationResult<T>>> subtaskEndingFutures = Collections.synchronizedList(new ArrayList<>());
-    private final List<AbstractMap.SimpleEntry<Consumer<SubGenerator>, CompletableFuture<GenerationResult<T>>>>
-            pendingFinalJobs = Collections.synchronizedList(new ArrayList<>());
     protected boolean airFiller = true;
+    /**
+     * With {@code airFiller} off: whether a later subtask's block at an already-filled position
+     * replaces the earlier one (true) or is dropped (false, the default).
+     */
+    protected boolean lastWriterWins = false;
     protected boolean isProduction = true;
 
     public ProceduralStructureGenerator() {
+        idleContext = new GenerationContext();
         prepareFlush(); // default flush; generate() will re-setup as needed
     }
 
+    /**
+     * Whether {@link #generate} may run for several origins at once on this instance. Subclasses
+     * that keep all per-run state in locals or in {@link #runState()} return true; the default
+     * keeps the old one-call-at-a-time behaviour. Callers may share one instance between
+     * origins only when this is true; otherwise build a fresh generator per call.
+     */
+    public boolean supportsConcurrentGeneration() {
+        return false;
+    }
+
+    /**
+     * Creates the subclass' per-run state for a new generate() call; see {@link #runState()}.
+     */
+    protected Object createRunState() {
+        return null;
+    }
+
+    /**
+     * The object returned by {@link #createRunState()} for the generate() call this thread is
+     * working on. Available from performGeneration(...) and from inside subtasks.
+     */
+    @SuppressWarnings("unchecked")
+    protected <S> S runState() {
+        return (S) context().runState;
+    }
+
+    /** Runs the current flush handler, moving buffered entries into the result containers. */
+    protected void flush() {
+        context().flush.run();
+    }
+
+    private GenerationContext context() {
+        GenerationContext ctx = currentContext.get();
+        return ctx != null ? ctx : idleContext;
+    }
+
+    // runs `job` on a worker thread with `ctx` installed as that thread's current context
+    private GenerationResult<T> runSubtask(GenerationContext ctx, Consumer<SubGenerator> job) {
+        GenerationContext previous = currentContext.get();
+        currentContext.set(ctx);
+        try {
+            SubGenerator sub = new SubGenerator();
+            job.accept(sub);
+            return sub.flushToResult();
+        } finally {
+            if (previous == null) currentContext.remove();
+            else currentContext.set(previous);
+        }
+    }
+
 
     public static double distance(Vec3 v1, Vec3 v2) {
         double dx = v2.x - v1.x;
@@ -142,11 +197,10 @@ public abstract class ProceduralStructureGenerator<T> {
      * });
      */
     protected Future<GenerationResult<T>> submitSubtask(Consumer<SubGenerator> job) {
+        GenerationContext ctx = context();
         CompletableFuture<GenerationResult<T>> fut = CompletableFuture.supplyAsync(() -> {
-            SubGenerator sub = new SubGenerator();
             try {
-                job.accept(sub);
-                return sub.flushToResult();
+                return runSubtask(ctx, job);
             } catch (Throwable t) {
                 // log & rethrow so future completes exceptionally
                 LOGGER.print("Subtask threw: " + t, ContextLogger.LogType.ERROR);
@@ -154,7 +208,7 @@ public abstract class ProceduralStructureGenerator<T> {
                 throw t;
             }
         }, GENERATOR_EXEC);
-        subtaskFutures.add(fut);
+        ctx.subtaskFutures.add(fut);
         return fut;
     }
 
@@ -209,7 +263,7 @@ public abstract class ProceduralStructureGenerator<T> {
      */
     protected Future<GenerationResult<T>> submitFinalisingSubtask(Consumer<SubGenerator> job) {
         CompletableFuture<GenerationResult<T>> placeholder = new CompletableFuture<>();
-        pendingFinalJobs.add(new AbstractMap.SimpleEntry<>(job, placeholder));
+        context().pendingFinalJobs.add(new AbstractMap.SimpleEntry<>(job, placeholder));
         return placeholder;
     }
 
@@ -224,43 +278,115 @@ public abstract class ProceduralStructureGenerator<T> {
      * lists/maps. Clears the subtask list afterwards.
      */
     protected void waitAndMergeSubtasks(List<BlockPlacement<T>> collectPlacements, Map<Long, BiConsumer<PlatformWorld<T, ?>, Vec3>> collectActions) {
+        waitAndMergeSubtasks(collectPlacements, collectActions, lastWriterWins);
+    }
+
+    /**
+     * Same as {@link #waitAndMergeSubtasks(List, Map)} with an explicit conflict policy for
+     * positions filled by more than one subtask (only used when {@code airFiller} is off).
+     */
+    protected void waitAndMergeSubtasks(List<BlockPlacement<T>> collectPlacements, Map<Long, BiConsumer<PlatformWorld<T, ?>, Vec3>> collectActions, boolean lastWriterWins) {
+        waitAndMerge(context().subtaskFutures, collectPlacements, collectActions, lastWriterWins,
+                "Subtask failed: ", "Interrupted while waiting for subtasks");
+    }
+
+    private void waitAndMerge(List<Future<GenerationResult<T>>> pending,
+                              List<BlockPlacement<T>> collectPlacements,
+                              Map<Long, BiConsumer<PlatformWorld<T, ?>, Vec3>> collectActions,
+                              boolean lastWriterWins, String failureMessage, String interruptMessage) {
         while (true) {
             List<Future<GenerationResult<T>>> futures;
-            synchronized (subtaskFutures) {
-                if (subtaskFutures.isEmpty()) return;
-                futures = new ArrayList<>(subtaskFutures);
-                subtaskFutures.clear();
+            synchronized (pending) {
+                if (pending.isEmpty()) return;
+                futures = new ArrayList<>(pending);
+                pending.clear();
             }
 
+            List<GenerationResult<T>> results = new ArrayList<>(futures.size());
             for (Future<GenerationResult<T>> f : futures) {
                 try {
                     GenerationResult<T> res = f.get(); // will block until finished OR throw
-                    if (res != null) {
-                        res.placements.forEach(it -> {
-                            if (airFiller) {
-                                collectPlacements.add(it);
-                            } else {
-                                if (!collectPlacements.contains(it)) collectPlacements.add(it);
-                            }
-                        });
-                        res.actions.forEach((it, it2) -> {
-                            if (airFiller) {
-                                collectActions.put(it, it2);
-                            } else {
-                                collectActions.putIfAbsent(it, it2);
-                            }
-                        });
-                    }
+                    if (res != null) results.add(res);
                 } catch (ExecutionException ee) {
-                    LOGGER.print("Subtask failed: " + ee.getCause(), ContextLogger.LogType.ERROR);
+                    LOGGER.print(failureMessage + ee.getCause(), ContextLogger.LogType.ERROR);
                     // you can decide whether to rethrow or continue; here we continue but log
                 } catch (InterruptedException ie) {
                     Thread.currentThread().interrupt();
-                    LOGGER.print("Interrupted while waiting for subtasks", ContextLogger.LogType.WARNING);
+                    LOGGER.print(interruptMessage, ContextLogger.LogType.WARNING);
                     throw new RuntimeException(ie);
                 }
             }
+            mergeResults(results, collectPlacements, collectActions, lastWriterWins);
+        }
+    }
+
+    /**
+     * Folds a batch of subtask results into the collectors, in submission order so the outcome
+     * doesn't depend on which subtask finished first. Without airFiller, positions are
+     * de-duplicated through a long-keyed index of {@code collectPlacements}.
+     */
+    private void mergeResults(List<GenerationResult<T>> results,
+                              List<BlockPlacement<T>> collectPlacements,
+                              Map<Long, BiConsumer<PlatformWorld<T, ?>, Vec3>> collectActions,
+                              boolean lastWriterWins) {
+        if (results.isEmpty()) return;
+        if (airFiller) {
+            for (GenerationResult<T> res : results) {
+                collectPlacements.addAll(res.placements);
+                collectActions.putAll(res.actions);
+            }
+            return;
+        }
+
+        // encoding is independent per result, so large batches do it in parallel
+        long[][] keys = new long[results.size()][];
+        int total = 0;
+        for (GenerationResult<T> res : results) total += res.placements.size();
+        IntStream indices = IntStream.range(0, results.size());
+        if (results.size() > 1 && total >= PARALLEL_MERGE_THRESHOLD) indices = indices.parallel();
+        indices.forEach(i -> keys[i] = encodeAll(results.get(i).placements));
+
+        TLongIntHashMap slots = mergeIndex(collectPlacements);
+        for (int r = 0; r < results.size(); r++) {
+            List<BlockPlacement<T>> placements = results.get(r).placements;
+            long[] k = keys[r];
+            for (int i = 0; i < k.length; i++) {
+                int slot = slots.get(k[i]);
+                if (slot < 0) {
+                    slots.put(k[i], collectPlacements.size());
+                    collectPlacements.add(placements.get(i));
+                } else if (lastWriterWins) {
+                    collectPlacements.set(slot, placements.get(i));
+                }
+            }
+            results.get(r).actions.forEach(lastWriterWins ? collectActions::put : collectActions::putIfAbsent);
         }
+        context().mergeIndexed = collectPlacements.size();
+    }
+
+    // position -> index in collectPlacements, brought up to date with anything flushed since the last merge
+    private TLongIntHashMap mergeIndex(List<BlockPlacement<T>> collectPlacements) {
+        GenerationContext ctx = context();
+        if (ctx.mergeSlots == null || ctx.mergeTarget != collectPlacements) {
+            ctx.mergeSlots = new TLongIntHashMap(Math.max(16, collectPlacements.size() * 2), 0.5f, Long.MIN_VALUE, -1);
+            ctx.mergeTarget = collectPlacements;
+            ctx.mergeIndexed = 0;
+        }
+        for (int i = ctx.mergeIndexed; i < collectPlacements.size(); i++) {
+            BlockPlacement<T> p = collectPlacements.get(i);
+            ctx.mergeSlots.put(encode(p.getX(), p.getY(), p.getZ()), i);
+        }
+        ctx.mergeIndexed = collectPlacements.size();
+        return ctx.mergeSlots;
+    }
+
+    private static <T> long[] encodeAll(List<BlockPlacement<T>> placements) {
+        long[] out = new long[placements.size()];
+        for (int i = 0; i < out.length; i++) {
+            BlockPlacement<T> p = placements.get(i);
+            out[i] = encode(p.getX(), p.getY(), p.getZ());
+        }
+        return out;
     }
 
     // — Helpers — keep same semantics, but buffering now targets the current flush target lists above
@@ -270,18 +396,22 @@ public abstract class ProceduralStructureGenerator<T> {
     }
 
     protected PlatformBlockState<T> getQueuedState(int x, int y, int z) {
-        long key = encode(x, y, z);
-        // scan backwards for speed: most recent writes come last
-        int p = ptr.get();
-        for (int i = p - 1; i >= 0; i--) {
-            if (posKeys[i] == key) {
-                return states[i] != null
-                        ? states[i]
-                        : // maybe it was an action, fall back to air
-                        (PlatformBlockState<T>) PlatformPlugin.stateFactory().getBlockState("minecraft:air");
-            }
+        PlatformBlockState<T> st = queuedStateOrNull(context(), encode(x, y, z));
+        // never queued, or it was an action: assume air
+        return st != null ? st : air();
+    }
+
+    // the run's buffer is shared with subtasks reading through it, so access is guarded by the buffer itself
+    private PlatformBlockState<T> queuedStateOrNull(GenerationContext ctx, long key) {
+        PlacementBuffer<T> buf = ctx.buffer;
+        if (buf == null) return null;
+        synchronized (buf) {
+            return buf.stateAt(key);
         }
-        // if we never queued it, assume it was air
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> PlatformBlockState<T> air() {
         return (PlatformBlockState<T>) PlatformPlugin.stateFactory().getBlockState("minecraft:air");
     }
 
@@ -290,69 +420,50 @@ public abstract class ProceduralStructureGenerator<T> {
      * lists/maps. Clears the subtask list afterwards.
      */
     protected void waitAndMergeFinalSubtasks(List<BlockPlacement<T>> collectPlacements, Map<Long, BiConsumer<PlatformWorld<T, ?>, Vec3>> collectActions) {
-        while (true) {
-            List<Future<GenerationResult<T>>> finalFutures;
-            synchronized (subtaskEndingFutures) {
-                if (subtaskEndingFutures.isEmpty()) return;
-                finalFutures = new ArrayList<>(subtaskEndingFutures);
-                subtaskEndingFutures.clear();
-            }
+        waitAndMergeFinalSubtasks(collectPlacements, collectActions, lastWriterWins);
+    }
 
-            for (Future<GenerationResult<T>> f : finalFutures) {
-                try {
-                    GenerationResult<T> res = f.get(); // will block until finished OR throw
-                    if (res != null) {
-                        res.placements.forEach(it -> {
-                            if (airFiller) {
-                                collectPlacements.add(it);
-                            } else {
-                                if (!collectPlacements.contains(it)) collectPlacements.add(it);
-                            }
-                        });
-                        res.actions.forEach((it, it2) -> {
-                            if (airFiller) {
-                                collectActions.put(it, it2);
-                            } else {
-                                collectActions.putIfAbsent(it, it2);
-                            }
-                        });
-                    }
-                } catch (ExecutionException ee) {
-                    LOGGER.print("Finalising Subtask failed: " + ee.getCause(), ContextLogger.LogType.ERROR);
-                    // you can decide whether to rethrow or continue; here we continue but log
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    LOGGER.print("Interrupted while waiting for finalising subtasks", ContextLogger.LogType.WARNING);
-                    throw new RuntimeException(ie);
-                }
-            }
-        }
+    protected void waitAndMergeFinalSubtasks(List<BlockPlacement<T>> collectPlacements, Map<Long, BiConsumer<PlatformWorld<T, ?>, Vec3>> collectActions, boolean lastWriterWins) {
+        waitAndMerge(context().subtaskEndingFutures, collectPlacements, collectActions, lastWriterWins,
+                "Finalising Subtask failed: ", "Interrupted while waiting for finalising subtasks");
     }
 
     protected void removeAt(int x, int y, int z) {
-        long key = encode(x, y, z);
-        cache.remove(key);
-        int p = ptr.get();
-        for (int i = p - 1; i >= 0; i--) {
-            if (posKeys[i] == key) {
-                posKeys[i] = -1;
-                actions[i] = null;
-                states[i] = null;
-            }
+        PlacementBuffer<T> buf = buffer();
+        synchronized (buf) {
+            buf.remove(encode(x, y, z));
         }
     }
 
     protected void guardAndAction(int x, int y, int z,
                                   BiConsumer<PlatformWorld<T, ?>, Vec3> act) {
-        if (ptr.get() >= DEFAULT_BATCH) flush.run();
-        if (ptr.get() >= DEFAULT_BATCH) return;
+        PlacementBuffer<T> buf = buffer();
+        if (buf.size >= DEFAULT_BATCH) flush();
+        synchronized (buf) {
+            if (buf.size >= DEFAULT_BATCH) return;
+            buf.store(encode(x, y, z), null, act);
+        }
+    }
+
+    /**
+     * The current run's queue. Leased lazily so helpers keep working when called outside generate(...).
+     */
+    private PlacementBuffer<T> buffer() {
+        GenerationContext ctx = context();
+        PlacementBuffer<T> buf = ctx.buffer;
+        if (buf == null) {
+            buf = PlacementBuffer.lease(sizeHint);
+            ctx.buffer = buf;
+        }
+        return buf;
+    }
 
-        long key = encode(x, y, z);
-        if (!cache.add(key)) return;
-        int idx = ptr.getAndIncrement();
-        posKeys[idx] = key;
-        states[idx] = null;
-        actions[idx] = act;
+    private void releaseBuffer(GenerationContext ctx) {
+        PlacementBuffer<T> buf = ctx.buffer;
+        if (buf == null) return;
+        ctx.buffer = null;
+        sizeHint = buf.highWater();
+        buf.release();
     }
 
     /**
@@ -362,12 +473,11 @@ public abstract class ProceduralStructureGenerator<T> {
      */
     protected void prepareFlush() {
         // default flush that simply clears the buffer (defensive)
-        this.flush = () -> {
-            ptr.set(0);
-            cache.clear();
+        GenerationContext ctx = context();
+        ctx.flush = () -> {
+            if (ctx.buffer != null) ctx.buffer.clear();
         };
-        ptr.set(0);
-        cache.clear();
+        if (ctx.buffer != null) ctx.buffer.clear();
     }
 
     /**
@@ -375,32 +485,18 @@ public abstract class ProceduralStructureGenerator<T> {
      */
     protected void prepareFlush(List<BlockPlacement<T>> collectPlacements, Map<Long, BiConsumer<PlatformWorld<T, ?>, Vec3>> collectActions) {
         // set flush to append buffered items into the provided lists/maps
-        this.flush = () -> {
-            int total = ptr.getAndSet(0);
-            for(int i=0;i<total; i++) {
-                long key = posKeys[i];
-                if (key == -1) continue;
-                int x = decodeX(key);
-                int y = decodeY(key);
-                int z = decodeZ(key);
-                // create BlockPlacement if we have a state
-                if (states[i] != null) {
-                    collectPlacements.add(new BlockPlacement<>(x, y, z, states[i], null));
-                } else if (actions[i] != null) {
-                    collectActions.put(key, actions[i]);
-                }
-                // clear slot for safety
-                posKeys[i] = -1;
-                states[i] = null;
-                actions[i] = null;
+        context().flush = () -> {
+            PlacementBuffer<T> buf = buffer();
+            synchronized (buf) {
+                buf.drainTo(collectPlacements, collectActions);
             }
-            cache.clear();
         };
-        ptr.set(0);
-        cache.clear();
+        buffer().clear();
     }
 
     private void drainAndSubmitFinalJobs() {
+        GenerationContext ctx = context();
+        List<AbstractMap.SimpleEntry<Consumer<SubGenerator>, CompletableFuture<GenerationResult<T>>>> pendingFinalJobs = ctx.pendingFinalJobs;
         List<AbstractMap.SimpleEntry<Consumer<SubGenerator>, CompletableFuture<GenerationResult<T>>>> copy;
         synchronized (pendingFinalJobs) {
             if (pendingFinalJobs.isEmpty()) return;
@@ -414,10 +510,8 @@ public abstract class ProceduralStructureGenerator<T> {
 
             // submit the actual work now
             CompletableFuture<GenerationResult<T>> fut = CompletableFuture.supplyAsync(() -> {
-                SubGenerator sub = new SubGenerator();
                 try {
-                    job.accept(sub);
-                    return sub.flushToResult();
+                    return runSubtask(ctx, job);
                 } catch (Throwable t) {
                     LOGGER.print("Finalising subtask threw: " + t, ContextLogger.LogType.ERROR);
                     t.printStackTrace();
@@ -432,7 +526,7 @@ public abstract class ProceduralStructureGenerator<T> {
             });
 
             // Add the real future to the list that generate() will wait on
-            subtaskEndingFutures.add(fut);
+            ctx.subtaskEndingFutures.add(fut);
         }
     }
 
@@ -467,46 +561,65 @@ public abstract class ProceduralStructureGenerator<T> {
     }
 
     /**
-     * Public convenience: call to generate placements (thread-safe-ish).
+     * Public convenience: call to generate placements.
      * This sets up the flush handler and returns a GenerationResult containing all queued placements
      * and actions. Subclasses should implement performGeneration(...) not this method.
      */
-    public final synchronized GenerationResult<T> generate(RandomSource rnd, Vec3 origin) {
+    public final GenerationResult<T> generate(RandomSource rnd, Vec3 origin) {
         return generate(rnd, origin, true);
     }
 
     /**
-     * Public convenience: call to generate placements (thread-safe-ish).
+     * Public convenience: call to generate placements.
      * This sets up the flush handler and returns a GenerationResult containing all queued placements
      * and actions. Subclasses should implement performGeneration(...) not this method.
+     * <p>
+     * All per-call state lives in a fresh context, so generators that
+     * {@link #supportsConcurrentGeneration() support it} can run this for several origins at once;
+     * the rest are serialised per instance as before.
      */
-    public final synchronized GenerationResult<T> generate(RandomSource rnd, Vec3 origin, boolean isProduction) {
-        this.rnd = rnd;
-        this.isProduction = isProduction;
+    public final GenerationResult<T> generate(RandomSource rnd, Vec3 origin, boolean isProduction) {
+        if (supportsConcurrentGeneration()) {
+            return runGeneration(rnd, origin, isProduction);
+        }
+        synchronized (generationLock) {
+            this.rnd = rnd;
+            this.isProduction = isProduction;
+            return runGeneration(rnd, origin, isProduction);
+        }
+    }
+
+    private GenerationResult<T> runGeneration(RandomSource rnd, Vec3 origin, boolean isProduction) {
         if (isProduction) {
             LOGGER.setLevel(ContextLogger.LogType.WARNING);
         }
         // result holders
         List<BlockPlacement<T>> placements = new ArrayList<>();
         Map<Long, BiConsumer<PlatformWorld<T, ?>, Vec3>> actionMap = new HashMap<>();
-        subtaskFutures.clear();
-        subtaskEndingFutures.clear();
 
-        // prepare flush so it writes into these lists (not to the world)
-        prepareFlush(placements, actionMap);
-
-        // let subclass generate using guardAndStore / guardAndAction
-        performGeneration(rnd, origin, placements, actionMap);
-
-        // ensure any remaining buffered entries are flushed into result lists
-        if (flush != null) flush.run();
-
-        waitAndMergeSubtasks(placements, actionMap);
-        drainAndSubmitFinalJobs();
-        waitAndMergeFinalSubtasks(placements, actionMap);
-
-        // reset to default flush which won't write to world (safe)
-        prepareFlush();
+        GenerationContext ctx = new GenerationContext();
+        ctx.runState = createRunState();
+        GenerationContext previous = currentContext.get();
+        currentContext.set(ctx);
+        try {
+            // prepare flush so it writes into these lists (not to the world)
+            prepareFlush(placements, actionMap);
+
+            // let subclass generate using guardAndStore / guardAndAction
+            performGeneration(rnd, origin, placements, actionMap);
+
+            // ensure any remaining buffered entries are flushed into result lists
+            flush();
+
+            waitAndMergeSubtasks(placements, actionMap);
+            drainAndSubmitFinalJobs();
+            waitAndMergeFinalSubtasks(placements, actionMap);
+        } finally {
+            // hand the buffer back and restore whatever context this thread had before
+            releaseBuffer(ctx);
+            if (previous == null) currentContext.remove();
+            else currentContext.set(previous);
+        }
 
         return new GenerationResult<>(placements, actionMap);
     }
@@ -517,53 +630,58 @@ public abstract class ProceduralStructureGenerator<T> {
         return guardAndStore(vec.round().getIntX(), vec.round().getIntY(), vec.round().getIntZ(), st, useSphere, 1);
     }
 
+    /**
+     * Sink that queues {@code st} at every position it receives, for streaming the
+     * {@link SpiralUtil} voxelizers straight into this run's buffer. Repeated positions are
+     * dropped by the buffer.
+     */
+    protected VoxelSink blockSink(PlatformBlockState<T> st) {
+        return (x, y, z) -> guardAndStore(x, y, z, st, false, 1);
+    }
+
     /**
      * Attempt to queue a block (or sphere) at cx,cy,cz.
      *
      * @return true if a new block was queued (i.e. cache.add was true), false otherwise.
      */
     protected boolean guardAndStore(int cx, int cy, int cz, PlatformBlockState<T> st, boolean useSphere, int fixedR) {
-        if (ptr.get() >= DEFAULT_BATCH) {
-            flush.run();
+        PlacementBuffer<T> buf = buffer();
+        if (buf.size >= DEFAULT_BATCH) {
+            flush();
         }
-        boolean placed = false;
+        synchronized (buf) {
+            return storeShape(buf, cx, cy, cz, st, useSphere, fixedR);
+        }
+    }
+
+    /**
+     * Queues a single block, sphere or disc into {@code buf}, stopping once it holds DEFAULT_BATCH entries.
+     */
+    private static <T> boolean storeShape(PlacementBuffer<T> buf, int cx, int cy, int cz,
+                                          PlatformBlockState<T> st, boolean useSphere, int fixedR) {
         if (fixedR == 1) {
-            if (ptr.get() >= DEFAULT_BATCH) return false;
-            long key = encode(cx, cy, cz);
-            if (!cache.add(key)) return false;
-            int idx = ptr.getAndIncrement();
-            posKeys[idx] = key;
-            states[idx] = st;
-            actions[idx] = null;
-            placed = true;
-        } else {
-            if (useSphere) {
-                short[] off = StructureCacheUtils.getSphereOffsets(fixedR);
-                for (int i = 0; i < off.length; i += 3) {
-                    if (ptr.get() >= DEFAULT_BATCH) break;
-                    int x = cx + off[i], y = cy + off[i + 1], z = cz + off[i + 2];
-                    long key = encode(x, y, z);
-                    if (!cache.add(key)) continue;
-                    int idx = ptr.getAndIncrement();
-                    posKeys[idx] = key;
-                    states[idx] = st;
-                    actions[idx] = null;
-                    placed = true;
+            if (buf.size >= DEFAULT_BATCH) return false;
+            return buf.store(encode(cx, cy, cz), st, null);
+        }
+        boolean placed = false;
+        if (useSphere) {
+            // z-runs: x/y bits of the key are fixed per run, only the z field changes
+            short[] runs = StructureCacheUtils.getSphereRuns(fixedR);
+            for (int i = 0; i < runs.length; i += 3) {
+                long xy = encode(cx + runs[i], cy + runs[i + 1], 0) & ~(long) MASK;
+                int half = runs[i + 2];
+                for (int dz = -half; dz <= half; dz++) {
+                    if (buf.size >= DEFAULT_BATCH) return placed;
+                    placed |= buf.store(xy | ((long) (cz + dz + BIAS) & MASK), st, null);
                 }
-            } else {
-                short[] scan = StructureCacheUtils.getDiscScanlineWidths(fixedR);
-                for (int dz = -fixedR; dz <= fixedR; dz++) {
-                    if (ptr.get() >= DEFAULT_BATCH) break;
-                    int half = scan[dz + fixedR];
-                    for (int dx = -half; dx <= half; dx++) {
-                        long key = encode(cx + dx, cy, cz + dz);
-                        if (!cache.add(key)) continue;
-                        int idx = ptr.getAndIncrement();
-                        posKeys[idx] = key;
-                        states[idx] = st;
-                        actions[idx] = null;
-                        placed = true;
-                    }
+            }
+        } else {
+            short[] scan = StructureCacheUtils.getDiscScanlineWidths(fixedR);
+            for (int dz = -fixedR; dz <= fixedR; dz++) {
+                if (buf.size >= DEFAULT_BATCH) break;
+                int half = scan[dz + fixedR];
+                for (int dx = -half; dx <= half; dx++) {
+                    placed |= buf.store(encode(cx + dx, cy, cz + dz), st, null);
                 }
             }
         }
@@ -582,72 +700,52 @@ public abstract class ProceduralStructureGenerator<T> {
         }
     }
 
+    /**
+     * Everything one generate(...) call mutates: the placement queue, the flush target, the
+     * subtask futures and the subclass' run state.
+     */
+    private final class GenerationContext {
+        final List<Future<GenerationResult<T>>> subtaskFutures = Collections.synchronizedList(new ArrayList<>());
+        final List<Future<GenerationResult<T>>> subtaskEndingFutures = Collections.synchronizedList(new ArrayList<>());
+        final List<AbstractMap.SimpleEntry<Consumer<SubGenerator>, CompletableFuture<GenerationResult<T>>>>
+                pendingFinalJobs = Collections.synchronizedList(new ArrayList<>());
+        PlacementBuffer<T> buffer;
+        Runnable flush;
+        Object runState;
+        // de-duplication index for merges into mergeTarget (see mergeIndex)
+        TLongIntHashMap mergeSlots;
+        List<?> mergeTarget;
+        int mergeIndexed;
+    }
+
     /**
      * SubGenerator: thread-local small generator context for subtasks.
-     * It re-implements only the parts we need: caching, ptr, buffers and guard/flush.
+     * It re-implements only the parts we need: caching, pooled buffers and guard/flush.
      */
     public class SubGenerator {
-        private final long[] s_posKeys = new long[DEFAULT_BATCH];
-        @SuppressWarnings("unchecked")
-        private final PlatformBlockState<T>[] s_states = (PlatformBlockState<T>[]) new PlatformBlockState[DEFAULT_BATCH];
-        @SuppressWarnings("unchecked")
-        private final BiConsumer<PlatformWorld<T, ?>, Vec3>[] s_actions = (BiConsumer<PlatformWorld<T, ?>, Vec3>[]) new BiConsumer[DEFAULT_BATCH];
-        private final TLongHashSet s_cache = new TLongHashSet(DEFAULT_BATCH);
-        private final AtomicInteger s_ptr = new AtomicInteger(0);
+        // leased on first use and handed back to the pool by flushToResult()
+        private PlacementBuffer<T> buf;
+        // the run this subtask belongs to; its queue is visible read-only through getQueuedState
+        private final GenerationContext parent = context();
 
         public SubGenerator() {
             // neutral init if needed
         }
 
+        private PlacementBuffer<T> buffer() {
+            if (buf == null) buf = PlacementBuffer.lease(subtaskSizeHint);
+            return buf;
+        }
+
         // Use same encode helper from outer class
         public boolean guardAndStore(int cx, int cy, int cz, PlatformBlockState<T> st, boolean useSphere, int fixedR) {
-            if (s_ptr.get() >= DEFAULT_BATCH) {
+            PlacementBuffer<T> b = buffer();
+            if (b.size >= DEFAULT_BATCH) {
                 // If a subtask overruns the batch, flush to local placements (but we can't call outer flush).
                 // To keep it simple, we just stop accepting further placements in this subtask.
                 return false;
             }
-            boolean placed = false;
-            if (fixedR == 1) {
-                long key = encode(cx, cy, cz);
-                if (!s_cache.add(key)) return false;
-                int idx = s_ptr.getAndIncrement();
-                s_posKeys[idx] = key;
-                s_states[idx] = st;
-                s_actions[idx] = null;
-                placed = true;
-            } else {
-                // sphere/disc handling: reuse your StructureCacheUtils exactly as outer does
-                if (useSphere) {
-                    short[] off = StructureCacheUtils.getSphereOffsets(fixedR);
-                    for (int i = 0; i < off.length; i += 3) {
-                        if (s_ptr.get() >= DEFAULT_BATCH) break;
-                        int x = cx + off[i], y = cy + off[i + 1], z = cz + off[i + 2];
-                        long key = encode(x, y, z);
-                        if (!s_cache.add(key)) continue;
-                        int idx = s_ptr.getAndIncrement();
-                        s_posKeys[idx] = key;
-                        s_states[idx] = st;
-                        s_actions[idx] = null;
-                        placed = true;
-                    }
-                } else {
-                    short[] scan = StructureCacheUtils.getDiscScanlineWidths(fixedR);
-                    for (int dz = -fixedR; dz <= fixedR; dz++) {
-                        if (s_ptr.get() >= DEFAULT_BATCH) break;
-                        int half = scan[dz + fixedR];
-                        for (int dx = -half; dx <= half; dx++) {
-                            long key = encode(cx + dx, cy, cz + dz);
-                            if (!s_cache.add(key)) continue;
-                            int idx = s_ptr.getAndIncrement();
-                            s_posKeys[idx] = key;
-                            s_states[idx] = st;
-                            s_actions[idx] = null;
-                            placed = true;
-                        }
-                    }
-                }
-            }
-            return placed;
+            return storeShape(b, cx, cy, cz, st, useSphere, fixedR);
         }
 
         public boolean guardAndStore(Vec3 vec, PlatformBlockState<T> st, boolean useSphere) {
@@ -658,14 +756,31 @@ public abstract class ProceduralStructureGenerator<T> {
             return guardAndStore(vec.round().getIntX(), vec.round().getIntY(), vec.round().getIntZ(), st, useSphere, fixedR);
         }
 
+        /** Sink that queues {@code st} in this subtask's buffer; see the outer {@code blockSink}. */
+        public VoxelSink blockSink(PlatformBlockState<T> st) {
+            return (x, y, z) -> guardAndStore(x, y, z, st, false, 1);
+        }
+
         public void guardAndAction(int x, int y, int z, BiConsumer<PlatformWorld<T, ?>, Vec3> act) {
-            if (s_ptr.get() >= DEFAULT_BATCH) return;
+            PlacementBuffer<T> b = buffer();
+            if (b.size >= DEFAULT_BATCH) return;
+            b.store(encode(x, y, z), null, act);
+        }
+
+        /**
+         * State queued at x,y,z by this subtask, falling back to what the parent run still has
+         * buffered; air if neither queued a block there.
+         */
+        public PlatformBlockState<T> getQueuedState(int x, int y, int z) {
             long key = encode(x, y, z);
-            if (!s_cache.add(key)) return;
-            int idx = s_ptr.getAndIncrement();
-            s_posKeys[idx] = key;
-            s_states[idx] = null;
-            s_actions[idx] = act;
+            PlatformBlockState<T> st = buf != null ? buf.stateAt(key) : null;
+            if (st == null) st = queuedStateOrNull(parent, key);
+            return st != null ? st : air();
+        }
+
+        /** Drops whatever this subtask queued at x,y,z. The parent's queue is not touched. */
+        public void removeAt(int x, int y, int z) {
+            if (buf != null) buf.remove(encode(x, y, z));
         }
 
         /**
@@ -674,21 +789,12 @@ public abstract class ProceduralStructureGenerator<T> {
         public GenerationResult<T> flushToResult() {
             List<BlockPlacement<T>> placements = new ArrayList<>();
             Map<Long, BiConsumer<PlatformWorld<T, ?>, Vec3>> actions = new HashMap<>();
-            int total = s_ptr.getAndSet(0);
-            for (int i = 0; i < total; i++) {
-                long key = s_posKeys[i];
-                if (key == -1) continue;
-                int x = decodeX(key), y = decodeY(key), z = decodeZ(key);
-                if (s_states[i] != null) {
-                    placements.add(new BlockPlacement<>(x, y, z, s_states[i], null));
-                } else if (s_actions[i] != null) {
-                    actions.put(key, s_actions[i]);
-                }
-                s_posKeys[i] = -1;
-                s_states[i] = null;
-                s_actions[i] = null;
+            if (buf != null) {
+                buf.drainTo(placements, actions);
+                subtaskSizeHint = Math.max(subtaskSizeHint, buf.highWater());
+                buf.release();
+                buf = null;
             }
-            s_cache.clear();
             return new GenerationResult<>(placements, actions);
         }
     }
@@ -193,14 +193,28 @@ public class SpiralUtil {
             Function<Double, Double> radiusFunction,
             Function<Double, Double> pitchFunction) {
 
-        Set<Vec3> result = new HashSet<>();
+        VoxelSet result = new VoxelSet();
+        generateVineWithSpiralNoBezier(controlPoints, thickness, strands, steps, radiusFunction, pitchFunction, result);
+        return result.toVec3Set();
+    }
+
+    /**
+     * Streaming form of {@link #generateVineWithSpiralNoBezier(List, Function, int, float, Function, Function)}:
+     * every voxel is handed to {@code out} as it is rasterized. {@code out} may see duplicates.
+     */
+    public static void generateVineWithSpiralNoBezier(
+            List<Vec3> controlPoints,
+            Function<Double, Double> thickness,
+            int strands,
+            float steps,
+            Function<Double, Double> radiusFunction,
+            Function<Double, Double> pitchFunction,
+            VoxelSink out) {
+
         if (controlPoints == null || controlPoints.size() < 2) {
-            return result;
+            return;
         }
-        // 1. Sample smooth path by arc length
-        result.addAll(generateHelixAroundCurve(controlPoints, radiusFunction, pitchFunction, thickness, strands, steps, DefaultDecorators.SPIRAL.decorator, false, true));
-
-        return result;
+        generateHelixAroundCurve(controlPoints, radiusFunction, pitchFunction, thickness, strands, steps, DefaultDecorators.SPIRAL.decorator, false, true, out);
     }
 
     public static List<Vec3> generateSpiralBundle(int width,
@@ -322,16 +336,31 @@ public class SpiralUtil {
             Function<Double, Double> radiusFunction,
             Function<Double, Double> pitchFunction) {
 
-        Set<Vec3> result = new HashSet<>();
+        VoxelSet result = new VoxelSet();
+        generateVineWithSpiral(controlPoints, thickness, strands, steps, radiusFunction, pitchFunction, result);
+        return result.toVec3Set();
+    }
+
+    /**
+     * Streaming form of {@link #generateVineWithSpiral(List, Function, int, float, Function, Function)}:
+     * every voxel is handed to {@code out} as it is rasterized. {@code out} may see duplicates.
+     */
+    public static void generateVineWithSpiral(
+            List<Vec3> controlPoints,
+            Function<Double, Double> thickness,
+            int strands,
+            float steps,
+            Function<Double, Double> radiusFunction,
+            Function<Double, Double> pitchFunction,
+            VoxelSink out) {
+
         if (controlPoints == null || controlPoints.size() < 2) {
-            return result;
+            return;
         }
 
         // 1. Sample smooth path by arc length
         List<Vec3> path = BezierCurve.generatePoints(controlPoints, 200);
-        result.addAll(generateHelixAroundCurve(path, radiusFunction, pitchFunction, thickness, strands, steps, DefaultDecorators.SPIRAL.decorator, false, true));
-
-        return result;
+        generateHelixAroundCurve(path, radiusFunction, pitchFunction, thickness, strands, steps, DefaultDecorators.SPIRAL.decorator, false, true, out);
     }
 
     /**
@@ -343,7 +372,7 @@ public class SpiralUtil {
      *                       Example: progress -> 5.0 * progress gives 0→5 turns.
      * @param thickness      Thickness of each strand (radius for generateSphere).
      * @param strands        Number of spiral strands (2 = double helix, etc).
-     * @return Set of Vec3 positions.
+     * @return Set of block positions.
      */
     public static Set<Vec3> generateHelixAroundCurve(
             @NotNull List<Vec3> bezierPoints,
@@ -355,9 +384,29 @@ public class SpiralUtil {
             boolean hollow,
             boolean fillDisks) {
 
-        Set<Vec3> result = new HashSet<>();
+        VoxelSet result = new VoxelSet();
+        generateHelixAroundCurve(bezierPoints, radiusFunction, pitchFunction, thickness, strands, steps, decorator, hollow, fillDisks, result);
+        return result.toVec3Set();
+    }
+
+    /**
+     * Streaming form of {@link #generateHelixAroundCurve(List, Function, Function, Function, int, float, CurveDecoration, boolean, boolean)}.
+     * Disks and cylinder sweeps overlap heavily, so {@code out} sees most positions several times;
+     * pass a {@link VoxelSet} to collapse them, or a generator sink whose buffer already de-duplicates.
+     */
+    public static void generateHelixAroundCurve(
+            @NotNull List<Vec3> bezierPoints,
+            @NotNull Function<Double, Double> radiusFunction,
+            @NotNull Function<Double, Double> pitchFunction,
+            @NotNull Function<Double, Double> thickness, int strands,
+            float steps,
+            @Nullable CurveDecoration decorator,
+            boolean hollow,
+            boolean fillDisks,
+            @NotNull VoxelSink out) {
+
         int m = bezierPoints.size();
-        if (m < 2) return result;
+        if (m < 2) return;
 
         Vec3[] t = new Vec3[m];
         Vec3[] u = new Vec3[m];
@@ -541,11 +590,10 @@ public class SpiralUtil {
             }
         }
 
-        Set<Vec3> outerVoxels = connectStrandsWithCylinders(shellStrands, sampleStep);
+        connectStrandsWithCylinders(shellStrands, sampleStep, out);
         if (!hollow) {
             if (fillDisks) {
                 double innerSteps = steps / 5;
-                Set<Vec3> innerVoxels = new HashSet<>();
                 for (double j = 0; j < m; j += innerSteps) {
                     double progress = j / (m - 1);
                     double radius = radiusFunction.apply(progress);
@@ -554,11 +602,9 @@ public class SpiralUtil {
 
                     // fill a disk with radius reduced by thickness
                     double innerRadius = Math.max(0, radius - thickness.apply(progress));
-                    fillDiskAtVoxel(innerVoxels, center, tangent, innerRadius);
+                    fillDiskAtVoxel(out, center, tangent, innerRadius);
                 }
-                outerVoxels.addAll(innerVoxels);
             } else {
-                Set<Vec3> innerVoxels = new HashSet<>();
                 for (double j = 0; j < m; j += steps) {
                     int i = (int) j;
                     double progress = (double) i / (m - 1);
@@ -569,28 +615,21 @@ public class SpiralUtil {
 
                     // fill a disk with radius reduced by thickness
                     double innerRadius = Math.max(0, radius - thickness.apply(progress));
-                    fillDiskAtVoxel(innerVoxels, center, t[i], innerRadius);
+                    fillDiskAtVoxel(out, center, t[i], innerRadius);
                 }
-                outerVoxels.addAll(innerVoxels);
             }
         }
-
-        for (Vec3 b : outerVoxels) {
-            result.add(new Vec3(b.x, b.y, b.z));
-        }
-
-        return result;
     }
 
     /**
      * Rasterize a filled disk at world center 'center' with plane normal 'normal' and world radius 'radius'.
-     * Writes block coords into 'out' (Set<Vec3>).
+     * Writes the rounded block coords into 'out'.
      * <p>
      * Inclusion test: project candidate block center into disk-local coordinates (px,pz) and accept if sqrt(px^2+pz^2) <= radius + 0.5*SQRT2_MARGIN.
      */
-    private static void fillDiskAtVoxel(Set<Vec3> out, Vec3 center, Vec3 normal, double radius) {
+    private static void fillDiskAtVoxel(VoxelSink out, Vec3 center, Vec3 normal, double radius) {
         if (radius <= 0.0001) {
-            out.add(center);
+            out.accept(center);
             return;
         }
         Vec3 n = normal.normalize();
@@ -601,19 +640,26 @@ public class SpiralUtil {
         // margin to include block centers that intersect the circle boundary.
         // 0.5 is safe; using 0.707 (sqrt(2)/2) is slightly more inclusive; use 0.5 by default.
         double margin = 0.5;
+        double limit = radius + margin + 1e-9;
+
+        // same arithmetic as center + u*ix + v*iz and its projection back onto u/v,
+        // kept in locals so the inner loop allocates nothing
+        double ux = u.x, uy = u.y, uz = u.z;
+        double vx = v.x, vy = v.y, vz = v.z;
+        double cx = center.x, cy = center.y, cz = center.z;
 
         int intR = (int) Math.round(radius + margin);
         // iterate integer block candidates in square [-intR..intR] in disk-plane coords
         for (int iz = -intR; iz <= intR; iz++) {
             for (int ix = -intR; ix <= intR; ix++) {
-                // world candidate = center + u*ix + v*iz
-                Vec3 candidate = u.multiply(ix).add(v.multiply(iz)).add(center);
-                // project back to local coords px = dot(candidate-center, u) etc (should be ix,iz exactly)
-                double px = candidate.subtract(center).dot(u);
-                double pz = candidate.subtract(center).dot(v);
-                double ld = Math.hypot(px, pz);
-                if (ld <= radius + margin + 1e-9) {
-                    out.add(candidate);
+                double wx = ux * ix + vx * iz + cx;
+                double wy = uy * ix + vy * iz + cy;
+                double wz = uz * ix + vz * iz + cz;
+                double dx = wx - cx, dy = wy - cy, dz = wz - cz;
+                double px = dx * ux + dy * uy + dz * uz;
+                double pz = dx * vx + dy * vy + dz * vz;
+                if (Math.hypot(px, pz) <= limit) {
+                    out.accept((int) Math.round(wx), (int) Math.round(wy), (int) Math.round(wz));
                 }
             }
         }
@@ -643,52 +689,37 @@ public class SpiralUtil {
      *
      * @param shellStrands ordered points-per-strand (each PWR contains world pos + radius)
      * @param sampleStep   max spacing along an edge when sampling disks (0.4..0.6 typical)
-     * @return set of Vec3 block centers that form the connected geometry (integer centers)
+     * @param out          receives the block positions of the connected geometry
      */
-    private static Set<Vec3> connectStrandsWithCylinders(
+    private static void connectStrandsWithCylinders(
             List<List<PWR>> shellStrands,
-            double sampleStep) {
-
-        // internal integer voxel set for dedupe & performance
-        Set<Vec3> filledVox = new HashSet<>();
+            double sampleStep,
+            VoxelSink out) {
 
         for (List<PWR> strand : shellStrands) {
             if (strand == null || strand.isEmpty()) continue;
 
             // fill endcap at first point
             PWR prev = strand.getFirst();
-            fillDiskAtVoxel(filledVox, prev.p, new Vec3(0, 1, 0), prev.r);
+            fillDiskAtVoxel(out, prev.p, new Vec3(0, 1, 0), prev.r);
 
             for (int i = 1; i < strand.size(); i++) {
                 PWR cur = strand.get(i);
 
-                double dy = Math.abs(prev.p.y - cur.p.y);
-                // if (dy <= verticalTolerance) {
                 // allowed: rasterize cylinder between prev -> cur
-                fillCylinderBetween(filledVox, prev.p, cur.p, prev.r, cur.r, sampleStep);
+                fillCylinderBetween(out, prev.p, cur.p, prev.r, cur.r, sampleStep);
                 // small endcaps to make seams robust
                 Vec3 seg = cur.p.subtract(prev.p);
                 Vec3 normal = seg.lengthSq() < 1e-9 ? new Vec3(0, 1, 0) : seg;
-                fillDiskAtVoxel(filledVox, prev.p, normal, prev.r);
-                fillDiskAtVoxel(filledVox, cur.p, normal, cur.r);
-                // } else {
-                // vertical difference too large: do NOT connect vertically
-                // still add disks at the endpoints so geometry remains closed locally
-                // fillDiskAtVoxel(filledVox, prev.p, new Vec3(0, 1, 0), prev.r);
-                // fillDiskAtVoxel(filledVox, cur.p, new Vec3(0, 1, 0), cur.r);
-                // }
+                fillDiskAtVoxel(out, prev.p, normal, prev.r);
+                fillDiskAtVoxel(out, cur.p, normal, cur.r);
 
                 prev = cur;
             }
 
             // ensure last endcap
-            fillDiskAtVoxel(filledVox, prev.p, new Vec3(0, 1, 0), prev.r);
+            fillDiskAtVoxel(out, prev.p, new Vec3(0, 1, 0), prev.r);
         }
-
-        // convert integer voxels back to Vec3 centers for compatibility with rest of code
-        Set<Vec3> result = new HashSet<>(filledVox.size());
-        for (Vec3 b : filledVox) result.add(new Vec3(b.x, b.y, b.z));
-        return result;
     }
 
     private static Pair<Vec3, Vec3> buildPerpFrame(Vec3 dir) {
@@ -746,7 +777,7 @@ public class SpiralUtil {
      * <p>
      * Using a margin of 0.5 makes block coverage stable and prevents small gaps/blobs.
      */
-    private static void fillCylinderBetween(Set<Vec3> out, Vec3 a, Vec3 b, double rA, double rB, double maxStep) {
+    private static void fillCylinderBetween(VoxelSink out, Vec3 a, Vec3 b, double rA, double rB, double maxStep) {
         double L = distance(a, b);
         if (L < 1e-9) {
             // degenerate: single disk
@@ -779,11 +810,20 @@ public class SpiralUtil {
      * @return A Set of Vec3 objects for the sphere's blocks.
      */
     public static Set<Vec3> generateSphere(Vec3 center, double diameter, boolean hollow) {
-        Set<Vec3> result = new HashSet<>();
+        VoxelSet result = new VoxelSet();
+        generateSphere(center, diameter, hollow, result);
+        return result.toVec3Set();
+    }
+
+    /**
+     * Streaming form of {@link #generateSphere(Vec3, double, boolean)}; each block is emitted once.
+     */
+    public static void generateSphere(Vec3 center, double diameter, boolean hollow, VoxelSink out) {
         double radius = diameter / 2;
 
         // Use squared radius for faster distance comparisons
         double radiusSq = radius * radius;
+        double innerRadiusSq = (radius - 1.0) * (radius - 1.0);
 
         // Create a bounding box to iterate through
         int minX = (int) Math.floor(center.x - radius);
@@ -794,28 +834,29 @@ public class SpiralUtil {
         int maxZ = (int) Math.round(center.z + radius);
 
         for (int x = minX; x <= maxX; x++) {
+            double dx = x - center.x;
             for (int y = minY; y <= maxY; y++) {
+                double dy = y - center.y;
                 for (int z = minZ; z <= maxZ; z++) {
-                    // Calculate the squared distance from the center
-                    double distSq = distance(center, new Vec3(x, y, z));
+                    double dz = z - center.z;
+                    // same value as distance(center, new Vec3(x, y, z))
+                    double distSq = Math.sqrt(dx * dx + dy * dy + dz * dz);
 
                     if (hollow) {
                         // For a hollow sphere, check if the point is on the surface
                         // by comparing it to the radius and a slightly smaller inner radius
-                        double innerRadiusSq = (radius - 1.0) * (radius - 1.0);
                         if (distSq <= radiusSq && distSq >= innerRadiusSq) {
-                            result.add(new Vec3(x, y, z));
+                            out.accept(x, y, z);
                         }
                     } else {
                         // For a solid sphere, simply check if the point is inside the radius
                         if (distSq <= radiusSq) {
-                            result.add(new Vec3(x, y, z));
+                            out.accept(x, y, z);
                         }
                     }
                 }
             }
         }
-        return result;
     }
 
     public static Set<Vec3> generateThicknessPath(
@@ -2,7 +2,10 @@ package org.vicky.vspe.platform.systems.dimension.StructureUtils;
 
 import org.vicky.vspe.platform.VSPEPlatformPlugin;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
 
 import static java.lang.Math.TAU;
 
@@ -11,71 +14,99 @@ import static java.lang.Math.TAU;
  * including regular polygons (pentagon, hexagon, heptagon, octagon).
  */
 public class StructureCacheUtils {
-    private static final Map<Integer, short[]> DISC_SCANLINES = new HashMap<>();
-    private static final Map<Integer, short[]> SPHERE_OFFSETS = new HashMap<>();
-    private static final Map<Integer, short[]> HEMISPHERE_OFFSETS = new HashMap<>();
-    private static final Map<Integer, short[]> CUBE_OFFSETS = new HashMap<>();
-    private static final Map<Integer, short[]> SQUARE_SCANLINES = new HashMap<>();
-    private static final Map<Integer, short[]> CYLINDER_OFFSETS = new HashMap<>();
-    private static final Map<Integer, short[]> CONE_OFFSETS = new HashMap<>();
-    // Polygon cache: key = r*10 + sides
-    private static final Map<Integer, short[]> POLYGON_OFFSETS = new HashMap<>();
+    /** Radii whose tables are built once when the class loads. */
+    public static final int PRECOMPUTED_RADIUS = 8;
+    // radii below this are memoised in lock-free arrays; larger ones fall back to a concurrent map
+    private static final int ARRAY_RADIUS_LIMIT = 256;
+
+    private static final ShapeTable DISC_SCANLINES = new ShapeTable(StructureCacheUtils::buildScanlineWidths);
+    private static final ShapeTable SPHERE_OFFSETS = new ShapeTable(StructureCacheUtils::buildSphereOffsets);
+    private static final ShapeTable SPHERE_RUNS = new ShapeTable(StructureCacheUtils::buildSphereRuns);
+    private static final ShapeTable HEMISPHERE_OFFSETS = new ShapeTable(StructureCacheUtils::buildHemisphereOffsets);
+    private static final ShapeTable CUBE_OFFSETS = new ShapeTable(StructureCacheUtils::buildCubeOffsets);
+    private static final ShapeTable SQUARE_SCANLINES = new ShapeTable(StructureCacheUtils::buildSquareScanlineWidths);
+    private static final ShapeTable CYLINDER_OFFSETS = new ShapeTable(StructureCacheUtils::buildCylinderOffsets);
+    private static final ShapeTable CONE_OFFSETS = new ShapeTable(StructureCacheUtils::buildConeOffsets);
+    // Polygon tables, one per side count
+    private static final ConcurrentHashMap<Integer, ShapeTable> POLYGON_OFFSETS = new ConcurrentHashMap<>();
+
+    static {
+        for (int r = 0; r <= PRECOMPUTED_RADIUS; r++) {
+            getDiscScanlineWidths(r);
+            getSphereOffsets(r);
+            getSphereRuns(r);
+            getHemisphereOffsets(r);
+            getCubeOffsets(r);
+            getSquareScanlineWidths(r);
+            getCylinderOffsets(r);
+            getConeOffsets(r);
+            for (int sides = 5; sides <= 8; sides++) getPolygonOffsets(r, sides);
+        }
+    }
 
     /**
      * For a given radius r returns a (2r+1)-length array of half-widths for each dy
      */
     public static short[] getDiscScanlineWidths(int r) {
-        return DISC_SCANLINES.computeIfAbsent(r, StructureCacheUtils::buildScanlineWidths);
+        return DISC_SCANLINES.get(r);
     }
 
     /**
      * Full [dx,dy,dz,…] triples for spheres (solid)
      */
     public static short[] getSphereOffsets(int r) {
-        return SPHERE_OFFSETS.computeIfAbsent(r, StructureCacheUtils::buildSphereOffsets);
+        return SPHERE_OFFSETS.get(r);
+    }
+
+    /**
+     * The same solid sphere as {@link #getSphereOffsets(int)}, run-length encoded along z:
+     * [dx,dy,halfLen,…] triples, each covering dz = -halfLen..halfLen. Runs come in the same
+     * order as the voxel triples, so expanding them yields the identical sequence.
+     */
+    public static short[] getSphereRuns(int r) {
+        return SPHERE_RUNS.get(r);
     }
 
     /**
      * Upper hemisphere (dy >= 0) offsets
      */
     public static short[] getHemisphereOffsets(int r) {
-        return HEMISPHERE_OFFSETS.computeIfAbsent(r, StructureCacheUtils::buildHemisphereOffsets);
+        return HEMISPHERE_OFFSETS.get(r);
     }
 
     /**
      * Solid cube of side length 2r+1 centered
      */
     public static short[] getCubeOffsets(int r) {
-        return CUBE_OFFSETS.computeIfAbsent(r, StructureCacheUtils::buildCubeOffsets);
+        return CUBE_OFFSETS.get(r);
     }
 
     /**
      * 2D square (all points with |dx|,|dz| less_than= r)
      */
     public static short[] getSquareScanlineWidths(int r) {
-        return SQUARE_SCANLINES.computeIfAbsent(r, StructureCacheUtils::buildSquareScanlineWidths);
+        return SQUARE_SCANLINES.get(r);
     }
 
     /**
      * Vertical cylinder of height 2r and radius r
      */
     public static short[] getCylinderOffsets(int r) {
-        return CYLINDER_OFFSETS.computeIfAbsent(r, StructureCacheUtils::buildCylinderOffsets);
+        return CYLINDER_OFFSETS.get(r);
     }
 
     /**
      * Cone of height r and base radius r
      */
     public static short[] getConeOffsets(int r) {
-        return CONE_OFFSETS.computeIfAbsent(r, StructureCacheUtils::buildConeOffsets);
+        return CONE_OFFSETS.get(r);
     }
 
     /**
      * Regular polygon offsets (2D) for n sides at radius r
      */
     public static short[] getPolygonOffsets(int r, int sides) {
-        int key = r * 10 + sides;
-        return POLYGON_OFFSETS.computeIfAbsent(key, k -> buildPolygonOffsets(r, sides));
+        return POLYGON_OFFSETS.computeIfAbsent(sides, n -> new ShapeTable(radius -> buildPolygonOffsets(radius, n))).get(r);
     }
 
     /**
@@ -113,7 +144,7 @@ public class StructureCacheUtils {
     }
 
     private static short[] buildSphereOffsets(int r) {
-        List<Short> voxels = new ArrayList<>();
+        ShortBuilder voxels = new ShortBuilder();
         int r2 = r * r;
         for (int dy = -r; dy <= r; dy++) {
             int sliceR = (int) Math.floor(Math.sqrt(r2 - dy * dy));
@@ -122,17 +153,29 @@ public class StructureCacheUtils {
                 int dx2 = dx * dx;
                 int maxDz = (int) Math.floor(Math.sqrt(sliceR2 - dx2));
                 for (int dz = -maxDz; dz <= maxDz; dz++) {
-                    voxels.add((short) dx);
-                    voxels.add((short) dy);
-                    voxels.add((short) dz);
+                    voxels.add((short) dx, (short) dy, (short) dz);
                 }
             }
         }
-        return flatten(voxels);
+        return voxels.toArray();
+    }
+
+    private static short[] buildSphereRuns(int r) {
+        ShortBuilder runs = new ShortBuilder();
+        int r2 = r * r;
+        for (int dy = -r; dy <= r; dy++) {
+            int sliceR = (int) Math.floor(Math.sqrt(r2 - dy * dy));
+            int sliceR2 = sliceR * sliceR;
+            for (int dx = -sliceR; dx <= sliceR; dx++) {
+                int maxDz = (int) Math.floor(Math.sqrt(sliceR2 - dx * dx));
+                runs.add((short) dx, (short) dy, (short) maxDz);
+            }
+        }
+        return runs.toArray();
     }
 
     private static short[] buildHemisphereOffsets(int r) {
-        List<Short> voxels = new ArrayList<>();
+        ShortBuilder voxels = new ShortBuilder();
         int r2 = r * r;
         for (int dy = 0; dy <= r; dy++) {
             int sliceR = (int) Math.floor(Math.sqrt(r2 - dy * dy));
@@ -141,46 +184,40 @@ public class StructureCacheUtils {
                 int dx2 = dx * dx;
                 int maxDz = (int) Math.floor(Math.sqrt(sliceR2 - dx2));
                 for (int dz = -maxDz; dz <= maxDz; dz++) {
-                    voxels.add((short) dx);
-                    voxels.add((short) dy);
-                    voxels.add((short) dz);
+                    voxels.add((short) dx, (short) dy, (short) dz);
                 }
             }
         }
-        return flatten(voxels);
+        return voxels.toArray();
     }
 
     private static short[] buildCubeOffsets(int r) {
-        List<Short> voxels = new ArrayList<>();
+        ShortBuilder voxels = new ShortBuilder();
         for (int dy = -r; dy <= r; dy++)
             for (int dx = -r; dx <= r; dx++)
                 for (int dz = -r; dz <= r; dz++) {
-                    voxels.add((short) dx);
-                    voxels.add((short) dy);
-                    voxels.add((short) dz);
+                    voxels.add((short) dx, (short) dy, (short) dz);
                 }
-        return flatten(voxels);
+        return voxels.toArray();
     }
 
     private static short[] buildCylinderOffsets(int r) {
-        List<Short> voxels = new ArrayList<>();
+        ShortBuilder voxels = new ShortBuilder();
         short[] scan = buildScanlineWidths(r);
         for (int dy = -r; dy <= r; dy++) {
             for (int idx = 0; idx < scan.length; idx++) {
                 int row = idx - r;
                 int half = scan[idx];
                 for (int dx = -half; dx <= half; dx++) {
-                    voxels.add((short) dx);
-                    voxels.add((short) row);
-                    voxels.add((short) dy);
+                    voxels.add((short) dx, (short) row, (short) dy);
                 }
             }
         }
-        return flatten(voxels);
+        return voxels.toArray();
     }
 
     private static short[] buildConeOffsets(int r) {
-        List<Short> voxels = new ArrayList<>();
+        ShortBuilder voxels = new ShortBuilder();
         for (int dy = 0; dy <= r; dy++) {
             double frac = 1.0 - dy / (double) r;
             int sliceR = (int) Math.floor(r * frac);
@@ -189,20 +226,18 @@ public class StructureCacheUtils {
                 int dx2 = dx * dx;
                 int maxDz = (int) Math.floor(Math.sqrt(sliceR2 - dx2));
                 for (int dz = -maxDz; dz <= maxDz; dz++) {
-                    voxels.add((short) dx);
-                    voxels.add((short) dy);
-                    voxels.add((short) dz);
+                    voxels.add((short) dx, (short) dy, (short) dz);
                 }
             }
         }
-        return flatten(voxels);
+        return voxels.toArray();
     }
 
     /**
      * Build offsets for a 2D regular polygon of given number of sides at radius r.
      */
     private static short[] buildPolygonOffsets(int r, int sides) {
-        List<Short> coords = new ArrayList<>();
+        ShortBuilder coords = new ShortBuilder();
         double angleStep = TAU / sides;
         double halfSector = angleStep / 2;
         double cosHalfInterior = Math.cos(Math.PI / sides);
@@ -220,21 +255,61 @@ public class StructureCacheUtils {
                 double maxRadius = r * cosHalfInterior / Math.cos(angle - sectorAngle);
 
                 if (Math.hypot(dx, dz) <= maxRadius) {
-                    coords.add((short) dx);
-                    coords.add((short) dz);
+                    coords.add((short) dx, (short) dz);
                 }
             }
         }
 
-        short[] flat = new short[coords.size()];
-        for (int i = 0; i < flat.length; i++) flat[i] = coords.get(i);
-        return flat;
+        return coords.toArray();
     }
 
 
-    private static short[] flatten(List<Short> voxels) {
-        short[] flat = new short[voxels.size()];
-        for(int i = 0; i < flat.length; i++) flat[i] = voxels.get(i);
-        return flat;
+    /**
+     * Memoised table per radius. Lookups for common radii are a plain array read; a racing build
+     * is harmless because every builder is deterministic and the first published table wins.
+     */
+    private static final class ShapeTable {
+        private final IntFunction<short[]> builder;
+        private final AtomicReferenceArray<short[]> byRadius = new AtomicReferenceArray<>(ARRAY_RADIUS_LIMIT);
+        private final ConcurrentHashMap<Integer, short[]> large = new ConcurrentHashMap<>();
+
+        ShapeTable(IntFunction<short[]> builder) {
+            this.builder = builder;
+        }
+
+        short[] get(int r) {
+            if (r < 0 || r >= ARRAY_RADIUS_LIMIT) return large.computeIfAbsent(r, builder::apply);
+            short[] table = byRadius.get(r);
+            if (table != null) return table;
+            table = builder.apply(r);
+            return byRadius.compareAndSet(r, null, table) ? table : byRadius.get(r);
+        }
+    }
+
+    // growable short[] so builders don't box every coordinate
+    private static final class ShortBuilder {
+        private short[] data = new short[96];
+        private int size;
+
+        void add(short a, short b) {
+            ensure(2);
+            data[size++] = a;
+            data[size++] = b;
+        }
+
+        void add(short a, short b, short c) {
+            ensure(3);
+            data[size++] = a;
+            data[size++] = b;
+            data[size++] = c;
+        }
+
+        short[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,74 @@
+package org.vicky.vspe.platform.systems.dimension.StructureUtils;
+
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.set.hash.TLongHashSet;
+import org.vicky.platform.utils.Vec3;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * De-duplicating set of block positions packed into longs with
+ * {@link ProceduralStructureGenerator#encode(int, int, int)}, so a voxelized shape costs
+ * eight bytes per block instead of one boxed {@link Vec3} per sample.
+ */
+public final class VoxelSet implements VoxelSink {
+    private final TLongHashSet keys;
+
+    public VoxelSet() {
+        this.keys = new TLongHashSet();
+    }
+
+    public VoxelSet(int expected) {
+        this.keys = new TLongHashSet(expected);
+    }
+
+    @Override
+    public void accept(int x, int y, int z) {
+        keys.add(ProceduralStructureGenerator.encode(x, y, z));
+    }
+
+    /** @return true if the position was not in the set yet */
+    public boolean add(int x, int y, int z) {
+        return keys.add(ProceduralStructureGenerator.encode(x, y, z));
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return keys.contains(ProceduralStructureGenerator.encode(x, y, z));
+    }
+
+    public void addAll(VoxelSet other) {
+        keys.addAll(other.keys);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public boolean isEmpty() {
+        return keys.isEmpty();
+    }
+
+    public void clear() {
+        keys.clear();
+    }
+
+    /** Replays every position into {@code sink}, in no particular order. */
+    public void forEach(VoxelSink sink) {
+        TLongIterator it = keys.iterator();
+        while (it.hasNext()) {
+            long key = it.next();
+            sink.accept(
+                    ProceduralStructureGenerator.decodeX(key),
+                    ProceduralStructureGenerator.decodeY(key),
+                    ProceduralStructureGenerator.decodeZ(key));
+        }
+    }
+
+    /** Boxes the positions for callers that still work with {@code Set<Vec3>}. */
+    public Set<Vec3> toVec3Set() {
+        Set<Vec3> out = new HashSet<>(Math.max(16, (int) (keys.size() / 0.75f) + 1));
+        forEach((x, y, z) -> out.add(new Vec3(x, y, z)));
+        return out;
+    }
+}
@@ -0,0 +1,22 @@
+package org.vicky.vspe.platform.systems.dimension.StructureUtils;
+
+import org.vicky.platform.utils.Vec3;
+
+/**
+ * Receiver for integer block positions produced by the voxelizers in {@link SpiralUtil}.
+ * Implementations may see the same position more than once; use a {@link VoxelSet} when
+ * duplicates have to be collapsed before they reach the consumer.
+ */
+@FunctionalInterface
+public interface VoxelSink {
+    void accept(int x, int y, int z);
+
+    /**
+     * Accepts the block containing {@code v}, rounded with {@link Vec3#round()} exactly as
+     * {@code guardAndStore(Vec3, ...)} does.
+     */
+    default void accept(Vec3 v) {
+        Vec3 r = v.round();
+        accept(r.getIntX(), r.getIntY(), r.getIntZ());
+    }
+}
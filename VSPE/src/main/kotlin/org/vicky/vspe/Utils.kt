@@ -297,9 +297,15 @@ enum class Direction(val dx: Int, val dz: Int) {
     SOUTHWEST(-1, 1)
 }
 
+/**
+ * Per-key mutual exclusion. Entries are reference counted: they are created and bumped inside
+ * `ConcurrentHashMap.compute` and dropped the same way once the last holder or waiter leaves, so
+ * acquiring or releasing one key never blocks threads working on other keys.
+ */
 class KeyedLock<K> @JvmOverloads constructor(private val fair: Boolean = false) {
     class LockEntry(fair: Boolean) {
         val lock: ReentrantLock = ReentrantLock(fair)
+        // holders + waiters; only changed inside map.compute for this key
         val refs: AtomicInteger = AtomicInteger(1)
     }
 
@@ -309,10 +315,9 @@ class KeyedLock<K> @JvmOverloads constructor(private val fair: Boolean = false)
      * Acquire the lock for the given key. Blocks until the lock is obtained.
      * Must call close() on the returned LockToken (try-with-resources).
      */
-    @Synchronized
     fun acquire(key: K): LockToken<K> {
         // create or bump ref count atomically
-        val entry: LockEntry = map.compute(key) { k: K, existing: LockEntry? ->
+        val entry: LockEntry = map.compute(key) { _: K, existing: LockEntry? ->
             if (existing == null) {
                 return@compute LockEntry(fair)
             } else {
@@ -321,11 +326,19 @@ class KeyedLock<K> @JvmOverloads constructor(private val fair: Boolean = false)
             }
         }!!
 
-        // now obtain the lock (this will block if another thread holds it)
-        entry.lock.lock()
+        // now obtain the lock outside of any map bin lock (this will block if another thread holds it)
+        try {
+            entry.lock.lock()
+        } catch (t: Throwable) {
+            release(map, key, entry)
+            throw t
+        }
         return LockToken<K>(key, entry, map)
     }
 
+    /** Number of keys currently held or waited on. */
+    fun activeKeys(): Int = map.size
+
     /**
      * Token that represents ownership. AutoCloseable so it works with try-with-resources.
      */
@@ -337,72 +350,114 @@ class KeyedLock<K> @JvmOverloads constructor(private val fair: Boolean = false)
 
         /**
          * Release the lock and decrement ref count. If ref count drops to zero the entry
-         * is removed from the internal map (using remove(key, entry) to avoid races).
+         * is removed from the internal map in the same compute call, so a concurrent acquire
+         * either bumps the entry before removal or creates a fresh one after it.
          */
         override fun close() {
             if (closed) return
             try {
                 entry.lock.unlock()
             } finally {
-                val remaining = entry.refs.decrementAndGet()
-                if (remaining <= 0) {
-                    // remove only if the same entry is still present (avoid removing newer entry)
-                    map.remove(key, entry)
-                }
+                KeyedLock.release(map, key, entry)
                 closed = true
             }
         }
     }
+
+    internal companion object {
+        fun <K> release(map: ConcurrentHashMap<K, LockEntry>, key: K, entry: LockEntry) {
+            map.computeIfPresent(key) { _, existing ->
+                if (existing !== entry) existing
+                else if (existing.refs.decrementAndGet() <= 0) null
+                else existing
+            }
+        }
+    }
 }
 
+/**
+ * Per-key read/write locking with the same reference-counted entries as [KeyedLock]; no global
+ * monitor is held while running [withRead] or [withWrite] blocks or waiting for a key.
+ */
 class KeyedRWLock<K> {
-    private val map = ConcurrentHashMap<K, ReentrantReadWriteLock>()
+    private class Entry {
+        val lock = ReentrantReadWriteLock(true)
+        // users of this entry; only changed inside map.compute for this key
+        var refs = 1
+    }
 
-    @Synchronized
+    private val map = ConcurrentHashMap<K, Entry>()
+
+    /**
+     * Runs [block] under the read lock for [key], waiting for a writer to finish. With [ifLocked]
+     * the lock is only tried: if a writer holds it, [ifLocked] runs instead of waiting.
+     */
     fun <T> withRead(
         key: K,
         block: () -> T,
         ifLocked: (() -> T)? = null
     ): T {
-        val lock = map.computeIfAbsent(key) { ReentrantReadWriteLock(true) }
-        val readLock = lock.readLock()
+        val entry = retain(key)
+        val readLock = entry.lock.readLock()
 
-        // Try non-blocking acquire
-        return if (readLock.tryLock()) {
-            try {
-                block()
-            } finally {
-                readLock.unlock()
-                cleanupIfUnused(key, lock)
+        val locked = try {
+            if (ifLocked == null) {
+                readLock.lock()
+                true
+            } else {
+                readLock.tryLock()
             }
-        } else {
-            // Fallback: either call alternate or throw
-            ifLocked?.invoke()
-                ?: throw IllegalStateException("Lock for key $key is currently held")
+        } catch (t: Throwable) {
+            release(key, entry)
+            throw t
+        }
+        if (!locked) {
+            release(key, entry)
+            return ifLocked!!.invoke()
+        }
+        return try {
+            block()
+        } finally {
+            readLock.unlock()
+            release(key, entry)
         }
     }
 
-    @Synchronized
     fun <T> withWrite(
         key: K,
         block: () -> T
     ): T {
-        val lock = map.computeIfAbsent(key) { ReentrantReadWriteLock(true) }
-        val writeLock = lock.writeLock()
+        val entry = retain(key)
+        val writeLock = entry.lock.writeLock()
 
-        return try {
+        try {
             writeLock.lock()
+        } catch (t: Throwable) {
+            release(key, entry)
+            throw t
+        }
+        return try {
             block()
         } finally {
             writeLock.unlock()
-            cleanupIfUnused(key, lock)
+            release(key, entry)
         }
     }
 
-    // Optional cleanup if no threads are holding this lock
-    private fun cleanupIfUnused(key: K, lock: ReentrantReadWriteLock) {
-        if (!lock.isWriteLocked && lock.readLockCount == 0) {
-            map.remove(key, lock)
+    /** Number of keys currently locked or waited on. */
+    fun activeKeys(): Int = map.size
+
+    private fun retain(key: K): Entry =
+        map.compute(key) { _, existing ->
+            if (existing == null) Entry() else existing.also { it.refs++ }
+        }!!
+
+    // drop the entry with its last user, atomically with respect to retain()
+    private fun release(key: K, entry: Entry) {
+        map.computeIfPresent(key) { _, existing ->
+            if (existing !== entry) existing
+            else if (--existing.refs <= 0) null
+            else existing
         }
     }
 }
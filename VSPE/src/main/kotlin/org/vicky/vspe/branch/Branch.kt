@@ -1,5 +1,7 @@
 package org.vicky.vspe.branch
 
+import gnu.trove.list.array.TIntArrayList
+import gnu.trove.map.hash.TLongObjectHashMap
 import org.vicky.platform.utils.Vec3
 import org.vicky.vspe.Direction
 import org.vicky.vspe.platform.systems.dimension.StructureUtils.CorePointsFactory
@@ -9,7 +11,6 @@ import org.vicky.vspe.platform.systems.dimension.StructureUtils.factories.Straig
 import org.vicky.vspe.platform.systems.dimension.vspeChunkGenerator.RandomSource
 import org.vicky.vspe.platform.systems.dimension.vspeChunkGenerator.SeededRandomSource
 import org.vicky.vspe.shuffle
-import java.util.stream.Collectors
 import kotlin.math.*
 
 @JvmOverloads
@@ -638,6 +639,78 @@ data class AttachmentPoint(
 
 data class Sphere(val center: Vec3, val radius: Double)
 
+/**
+ * Uniform-grid broadphase over occupied spheres. A sphere no wider than a cell is bucketed in every
+ * cell its bounding box overlaps, so a query only visits the cells within its own radius plus
+ * margin. The few larger spheres (e.g. trunk samples) are kept in a separate list and checked
+ * linearly, which keeps one big sphere from widening every query.
+ * Insertion is incremental, so spheres accepted while a tree grows are visible to the next query.
+ */
+class SphereGrid(private val cellSize: Double) {
+    private val cells = TLongObjectHashMap<TIntArrayList>()
+    private val spheres = ArrayList<Sphere>()
+    private val oversized = TIntArrayList()
+
+    val size: Int get() = spheres.size
+
+    fun add(sphere: Sphere) {
+        val idx = spheres.size
+        spheres.add(sphere)
+        if (sphere.radius > cellSize) {
+            oversized.add(idx)
+            return
+        }
+        val c = sphere.center
+        val r = sphere.radius
+        for (cx in cell(c.x - r)..cell(c.x + r)) for (cy in cell(c.y - r)..cell(c.y + r)) for (cz in cell(c.z - r)..cell(c.z + r)) {
+            val key = key(cx, cy, cz)
+            var list = cells.get(key)
+            if (list == null) {
+                list = TIntArrayList(4)
+                cells.put(key, list)
+            }
+            list.add(idx)
+        }
+    }
+
+    /**
+     * True if a sphere of [radius] at [p] comes closer than [margin] to any stored sphere whose
+     * centre is not [ignoreCenter].
+     */
+    fun collides(p: Vec3, radius: Double, margin: Double, ignoreCenter: Vec3?): Boolean {
+        if (spheres.isEmpty()) return false
+        for (k in 0 until oversized.size()) {
+            if (hits(spheres[oversized.getQuick(k)], p, radius, margin, ignoreCenter)) return true
+        }
+        // a colliding sphere overlaps some cell within reach, and is bucketed there
+        val reach = radius + margin
+        val x0 = cell(p.x - reach); val x1 = cell(p.x + reach)
+        val y0 = cell(p.y - reach); val y1 = cell(p.y + reach)
+        val z0 = cell(p.z - reach); val z1 = cell(p.z + reach)
+        for (cx in x0..x1) for (cy in y0..y1) for (cz in z0..z1) {
+            val list = cells.get(key(cx, cy, cz)) ?: continue
+            for (k in 0 until list.size()) {
+                if (hits(spheres[list.getQuick(k)], p, radius, margin, ignoreCenter)) return true
+            }
+        }
+        return false
+    }
+
+    private fun hits(s: Sphere, p: Vec3, radius: Double, margin: Double, ignoreCenter: Vec3?): Boolean {
+        if (s.center == ignoreCenter) return false
+        val minDist = s.radius + radius + margin
+        val dx = p.x - s.center.x
+        val dy = p.y - s.center.y
+        val dz = p.z - s.center.z
+        return dx * dx + dy * dy + dz * dz < minDist * minDist
+    }
+
+    private fun cell(v: Double): Int = floor(v / cellSize).toInt()
+
+    private fun key(x: Int, y: Int, z: Int): Long =
+        ((x.toLong() and 0x1FFFFF) shl 42) or ((y.toLong() and 0x1FFFFF) shl 21) or (z.toLong() and 0x1FFFFF)
+}
+
 /**
  * Walks attachments and spawns branches using a rule + generator.
  * Keeps a list of occupied spheres (trunk + branches) to test collisions.
@@ -663,7 +736,6 @@ data class BranchingEngine(
         baseLengthMultiplier: Double
     ): MutableList<MutableList<Vec3>> {
         val allBranches: MutableList<MutableList<Vec3>> = ArrayList()
-        val occupied: MutableList<Sphere> = ArrayList()
 
         // --- configurable knobs ---
         val trunkCollisionFactor = 0.35               // trunk spheres shrink to 35% of parent radius
@@ -671,6 +743,9 @@ data class BranchingEngine(
         val defaultForwardBias = 0.06                 // small forward push
         val allowAngleJitterAttempts = 3              // if immediate collision, try small jitter a few times
 
+        // cells about one branch-segment collision diameter wide
+        val occupied = SphereGrid((2.0 * (minBranchThickness.coerceAtLeast(branchThickness) + safetyMargin)).coerceAtLeast(0.5))
+
         // Pre-fill trunk occupancy with smaller spheres to avoid blocking neighbors
         for (ap in attachments) {
             val r = 0.01.coerceAtLeast(ap.parentRadius * trunkCollisionFactor)
@@ -739,13 +814,15 @@ data class BranchingEngine(
                         // ensure anchor present
                         if (branchPts.isNotEmpty() && branchPts[0] != ap.position) branchPts.add(0, ap.position)
 
-                        val safe = trimBranchAgainstSpheres(
+                        val safeCount = safePrefixLength(
                             branchPts, occupied, ap.position,
                             minBranchThickness.coerceAtLeast(branchThickness), safetyMargin
                         )
 
-                        if (safe.size > 1) {
-                            branchSafe = safe
+                        if (safeCount > 1) {
+                            // drop the colliding tail in place instead of copying the safe part
+                            branchPts.subList(safeCount, branchPts.size).clear()
+                            branchSafe = branchPts
                             break
                         } else {
                             // small jitter and retry — mutate attempt angle; generator should use childRnd so it varies
@@ -769,42 +846,20 @@ data class BranchingEngine(
     }
 
     /**
-     * Removes points from the end of `branch` if they collide with any occupied spheres (excluding anchor).
-     * Returns the trimmed list.
+     * Number of leading points of `branch` that stay clear of the occupied spheres (the anchor
+     * always counts and spheres centred on it are ignored so branches can attach).
      */
-    private fun trimBranchAgainstSpheres(
-        branch: MutableList<Vec3>?,
-        occupied: MutableList<Sphere>,
+    private fun safePrefixLength(
+        branch: List<Vec3>,
+        occupied: SphereGrid,
         anchor: Vec3?,
         branchRadius: Double,
         margin: Double
-    ): MutableList<Vec3> {
-        if (branch == null || branch.size <= 1) return branch!!
-
-        var lastSafeIdx = 0 // anchor always safe
-        for (i in 1..<branch.size) {
-            val p = branch[i]
-            var collides = false
-            for (s in occupied) {
-                // allow overlap with the anchor sphere (so branches attach)
-                if (s.center == anchor) continue
-
-                val minDist: Double = s.radius + branchRadius + margin
-                val dx: Double = p.x - s.center.x
-                val dy: Double = p.y - s.center.y
-                val dz: Double = p.z - s.center.z
-                val distSq = dx * dx + dy * dy + dz * dz
-                if (distSq < minDist * minDist) {
-                    collides = true
-                    break
-                }
-            }
-            if (collides) break
-            lastSafeIdx = i
-        }
+    ): Int {
+        if (branch.size <= 1) return branch.size
 
-        // copy safe portion (0..lastSafeIdx)
-        return branch.subList(0, lastSafeIdx + 1)
-            .stream().collect(Collectors.toList())
+        var safe = 1 // anchor always safe
+        while (safe < branch.size && !occupied.collides(branch[safe], branchRadius, margin, anchor)) safe++
+        return safe
     }
-}
\ No newline at end of file
+}
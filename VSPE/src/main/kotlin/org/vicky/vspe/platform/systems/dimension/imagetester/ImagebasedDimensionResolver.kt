@@ -18,6 +18,13 @@ import java.awt.event.MouseEvent
 import java.awt.event.MouseMotionAdapter
 import java.awt.image.BufferedImage
 import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.ForkJoinTask
+import java.util.concurrent.RecursiveAction
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicInteger
 import javax.imageio.ImageIO
 import javax.swing.*
 import kotlin.math.abs
@@ -143,6 +150,9 @@ open class ImagePlatformBlock(
 }
 
 object ImageBasedChunkGenerator : PlatformChunkGenerator<String, SimpleConstructorBasedBiome> {
+    private val water = SimpleBlockState.from("test:water", "", { it }) as PlatformBlockState<String>
+    private val grass = SimpleBlockState.from("test:grass", "", { it }) as PlatformBlockState<String>
+
     // val chunkCache = object : ChunkCache<Pair<Int, Int>, ChunkData<String, SimpleConstructorBasedBiome>>(512) {}
     override fun generateChunk(context: ChunkGenerateContext<String, SimpleConstructorBasedBiome>): ChunkData<String, SimpleConstructorBasedBiome> {
         val chunkData = object : ChunkData<String, SimpleConstructorBasedBiome> {
@@ -162,21 +172,21 @@ object ImageBasedChunkGenerator : PlatformChunkGenerator<String, SimpleConstruct
             }
         }
 
+        // resolve the whole chunk in one batch instead of 256 independent lookups
+        val columnBiomes = arrayOfNulls<SimpleConstructorBasedBiome>(size * size)
+        context.biomeResolver.resolveBiomeGrid(
+            chunkData.chunkX * size, chunkData.chunkZ * size, size, size, 64, context.random.getSeed(), columnBiomes
+        )
+
         // Flat grass terrain
         for (x in 0 until size) {
             for (z in 0 until size) {
-                val worldX = chunkData.chunkX * size + x
-                val worldZ = chunkData.chunkZ * size + z
-                val b = context.biomeResolver.resolveBiome(worldX, 64, worldZ, context.random.getSeed())
+                val b = columnBiomes[z * size + x]!!
                 val biome = biomeCache.getOrPut(b.name) { b }
 
-                val block = if (biome.isOcean) {
-                    SimpleBlockState.from("test:water", "", { it })
-                } else {
-                    SimpleBlockState.from("test:grass", "", { it })
-                }
+                val block = if (biome.isOcean) water else grass
                 chunkData.setBiome(x, 64, z, biome) // 👈 This line sets the biome!
-                chunkData.setBlock(x, 64, z, block as PlatformBlockState<String>)
+                chunkData.setBlock(x, 64, z, block)
             }
         }
 
@@ -188,7 +198,8 @@ object ImageBasedChunkGenerator : PlatformChunkGenerator<String, SimpleConstruct
     }
 }
 
-val biomeCache: MutableMap<String, SimpleConstructorBasedBiome> = mutableMapOf()
+// shared by the parallel world generation workers
+val biomeCache: MutableMap<String, SimpleConstructorBasedBiome> = ConcurrentHashMap()
 
 fun SimpleConstructorBasedBiome.withChanges(
     name: String = this.name,
@@ -366,18 +377,28 @@ object placer : BlockPlacer<String> {
 
 }
 
-fun generateImageTestWorld() {
+/**
+ * Generates every chunk of the preview world on a fork-join pool and renders it straight into
+ * [ChunkFlusher]'s raster. Chunk rows are split into stripes, one per task; since each pixel is
+ * owned by a single block (see [ChunkFlusher.add]) workers never write the same pixel.
+ *
+ * The PNG is encoded once at the end, plus every [snapshotIntervalMs] while generating when > 0.
+ */
+fun generateImageTestWorld(
+    snapshotIntervalMs: Long = 0L,
+    parallelism: Int = Runtime.getRuntime().availableProcessors()
+) {
     val dim = ImageBasedDimension()
     val worldSize = imageSize * scale
     val chunkCount = ceil(worldSize / 16.0).toInt()
     val total = chunkCount * chunkCount
-    val mainStep = total / 10
-    val miniStep = total / 100
-    var done = 0
+    val mainStep = max(1, total / 10)
+    val miniStep = max(1, total / 100)
+    val done = AtomicInteger()
     val start = System.currentTimeMillis()
 
-    for (chunkX in 0 until chunkCount) {
-        for (chunkZ in 0 until chunkCount) {
+    fun generateRow(chunkZ: Int) {
+        for (chunkX in 0 until chunkCount) {
             val context = object : ChunkGenerateContext<String, SimpleConstructorBasedBiome>(
                 chunkX,
                 chunkZ,
@@ -386,25 +407,68 @@ fun generateImageTestWorld() {
                 placer,
                 { x, y, z -> Vec3(x.toDouble(), y.toDouble(), z.toDouble()) }) {}
             dim.chunkGenerator.generateChunk(context)
-            done++
+            val n = done.incrementAndGet()
 
-            if (done % mainStep == 0) {
-                val percent = (done * 100) / total
+            if (n % mainStep == 0) {
+                val percent = (n * 100) / total
                 val elapsed = System.currentTimeMillis() - start
                 println("World gen: $percent% complete (${elapsed}ms)")
-            } else if (done % miniStep == 0) {
+            } else if (n % miniStep == 0) {
                 print(".")
             }
         }
     }
 
+    val pool = ForkJoinPool(parallelism)
+    try {
+        val task = pool.submit(ChunkStripeTask(0, chunkCount, ::generateRow))
+        awaitWithSnapshots(task, snapshotIntervalMs)
+    } finally {
+        pool.shutdown()
+    }
+
     val totalTime = System.currentTimeMillis() - start
     println("\nWorld generation completed in ${totalTime}ms")
 
-    // make sure any buffered pixels are flushed and final PNG saved
+    // encode the final PNG once
     ChunkFlusher.finalizeAndSave()
 }
 
+// Splits chunk rows [from, to) in halves until a stripe is small enough for one worker.
+private class ChunkStripeTask(
+    private val from: Int,
+    private val to: Int,
+    private val row: (Int) -> Unit
+) : RecursiveAction() {
+    override fun compute() {
+        if (to - from <= STRIPE_ROWS) {
+            for (z in from until to) row(z)
+            return
+        }
+        val mid = (from + to) ushr 1
+        invokeAll(ChunkStripeTask(from, mid, row), ChunkStripeTask(mid, to, row))
+    }
+
+    companion object {
+        private const val STRIPE_ROWS = 4
+    }
+}
+
+private fun awaitWithSnapshots(task: ForkJoinTask<*>, snapshotIntervalMs: Long) {
+    if (snapshotIntervalMs <= 0) {
+        task.get()
+        return
+    }
+    while (true) {
+        try {
+            task.get(snapshotIntervalMs, TimeUnit.MILLISECONDS)
+            return
+        } catch (e: TimeoutException) {
+            ChunkFlusher.flushToImage(saveToDisk = true)
+        }
+    }
+}
+
 object FBMCache {
     private val cache = mutableMapOf<Long, FBMGenerator>()
     fun get(
@@ -833,6 +897,16 @@ object ImageBiomeResolver : BiomeResolver<SimpleConstructorBasedBiome> {
 
     override fun resolveBiome(x: Int, y: Int, z: Int, seed: Long): SimpleConstructorBasedBiome =
         resolver.resolveBiome(x, y, z, seed)
+
+    // forward the batch calls so VickyMapGen's grid sampling is used instead of the per-column default
+    override fun resolveBiomeGrid(x0: Int, z0: Int, width: Int, depth: Int, y: Int, seed: Long, out: Array<in SimpleConstructorBasedBiome>) =
+        resolver.resolveBiomeGrid(x0, z0, width, depth, y, seed, out)
+
+    override fun resolveBiomeGrid(
+        x0: Int, z0: Int, width: Int, depth: Int, y: Int, seed: Long,
+        out: IntArray,
+        ordinalOf: (SimpleConstructorBasedBiome) -> Int
+    ) = resolver.resolveBiomeGrid(x0, z0, width, depth, y, seed, out, ordinalOf)
 }
 
 const val imageSize = 512
@@ -1219,9 +1293,14 @@ fun debugNoiseStats(noise: NoiseSampler, cx: Int = 0, cz: Int = 0, step: Int = 1
     println("Noise stats -> min=%.3f max=%.3f mean=%.3f".format(min, max, mean))
 }
 
+/**
+ * Raster behind the image previews. Writes go straight into a shared `IntArray`; a pixel only
+ * takes colours from the block at its own origin (`px * scale`, `pz * scale`), so concurrent
+ * writers working on different chunks never touch the same pixel. Nothing is encoded until
+ * [flushToImage] with `saveToDisk = true` or [finalizeAndSave].
+ */
 object ChunkFlusher {
     private var IMAGE_FILENAME = "generated_world.png"
-    private const val FLUSH_THRESHOLD = 256     // flush when buffered pixels >= this (tune)
     private const val imageWidth = imageSize
     private const val imageHeight = imageSize
 
@@ -1229,68 +1308,36 @@ object ChunkFlusher {
         this.IMAGE_FILENAME = path
     }
 
-    // Buffered image kept in memory — small and OK (imageSize x imageSize)
-    private val image = BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB)
-
-    // buffer keyed by pixel coords (px, pz) -> Pair(blockColorInt, biomeName)
-    private val buffer = mutableMapOf<Pair<Int,Int>, Pair<Int, String?>>()
-
-    // small cache to avoid new Color() allocations
-    private val colorCache = mutableMapOf<Int, Int>() // biomeColor -> rgb int
+    // row-major pixels (pz * imageWidth + px), RGB
+    private val raster = IntArray(imageWidth * imageHeight)
 
-    private val lock = Any()
-
-    // map world coords -> pixel coords
-    private fun worldToPixel(wx: Int, wz: Int): Pair<Int, Int>? {
-        val px = wx / scale
-        val pz = wz / scale
-        if (px !in 0 until imageWidth || pz !in 0 until imageHeight) return null
-        return px to pz
-    }
-
-    private fun colorIntFromBiome(biomeColor: Int): Int =
-        colorCache.getOrPut(biomeColor) { Color(biomeColor).rgb }
+    // Buffered image kept in memory — small and OK (imageSize x imageSize); only touched when encoding
+    private val image = BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB)
 
     /**
-     * Add a block/biome write to the buffer. Will flush automatically when threshold is exceeded.
+     * Writes a block/biome colour for the pixel owning this block. Blocks other than a pixel's
+     * origin are ignored.
      * - worldX/worldZ are absolute block coords
      * - blockColor is the rgb int for the block (or null if you only want biome color)
      * - biomePair is Pair(biomeColorInt, biomeName) or null
      */
     fun add(worldX: Int, worldZ: Int, blockColor: Int?, biomePair: Pair<Int, String>?) {
-        val pxpz = worldToPixel(worldX, worldZ) ?: return
-        synchronized(lock) {
-            // prefer biome color for the pixel (you can change preference)
-            val color = biomePair?.first ?: blockColor ?: 0xC8C8C8
-            // store RGB int and biome name (small string)
-            buffer[pxpz] = color to biomePair?.second
-            if (buffer.size >= FLUSH_THRESHOLD) {
-                flushToImage(saveToDisk = true)
-            }
-        }
+        if (worldX % scale != 0 || worldZ % scale != 0) return
+        val px = worldX / scale
+        val pz = worldZ / scale
+        if (px !in 0 until imageWidth || pz !in 0 until imageHeight) return
+        // prefer biome color for the pixel (you can change preference)
+        raster[pz * imageWidth + px] = biomePair?.first ?: blockColor ?: 0xC8C8C8
     }
 
     /**
-     * Force-flush buffered pixels into the image and optionally write PNG to disk.
-     * After this call buffer is cleared (so memory for those entries is freed).
+     * Copies the raster into the image and optionally writes the PNG to disk. Safe to call while
+     * workers are still writing; the snapshot then shows whatever has been rendered so far.
      */
+    @Synchronized
     fun flushToImage(saveToDisk: Boolean = false) {
-        val snapshot: Map<Pair<Int,Int>, Pair<Int, String?>>
-        synchronized(lock) {
-            if (buffer.isEmpty()) return
-            snapshot = HashMap(buffer) // copy out
-            buffer.clear()
-        }
-
-        // paint into in-memory BufferedImage (fast)
-        for ((pxpz, pair) in snapshot) {
-            val (px, pz) = pxpz
-            val (biomeColorInt, _) = pair
-            // biomeColorInt is an integer rgb value from colorIntFromBiome OR direct
-            image.setRGB(px, pz, biomeColorInt)
-        }
+        image.setRGB(0, 0, imageWidth, imageHeight, raster, 0, imageWidth)
 
-        // optionally save a PNG snapshot (cheapish; can be disabled if disk I/O is the bottleneck)
         if (saveToDisk) {
             try {
                 ImageIO.write(image, "png", File(IMAGE_FILENAME))
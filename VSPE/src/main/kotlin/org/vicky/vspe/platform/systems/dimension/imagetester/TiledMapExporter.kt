@@ -0,0 +1,231 @@
+package org.vicky.vspe.platform.systems.dimension.imagetester
+
+import org.vicky.vspe.platform.systems.dimension.vspeChunkGenerator.BiomeResolver
+import org.vicky.vspe.platform.systems.dimension.vspeChunkGenerator.PlatformBiome
+import java.awt.image.BufferedImage
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.RecursiveTask
+import java.util.concurrent.atomic.AtomicInteger
+import javax.imageio.ImageIO
+
+/**
+ * Renders a rectangular area straight into image tiles.
+ */
+fun interface TileRenderer {
+    /**
+     * Fills [out] (`out[pz * width + px]`, ARGB) with the colours of a [width] x [depth] pixel block
+     * whose first pixel samples block ([worldX], [worldZ]); each pixel covers [step] blocks per axis.
+     * Called concurrently for different tiles.
+     */
+    fun render(worldX: Int, worldZ: Int, step: Int, width: Int, depth: Int, out: IntArray)
+}
+
+/**
+ * Exports a region as a `z/x/y.png` tile pyramid that any slippy-map viewer can open offline.
+ *
+ * The deepest zoom level holds the region at full resolution ([blocksPerPixel] blocks per pixel);
+ * each level above is downsampled 2x2 from the four tiles below it, and zoom 0 is a single tile.
+ * Tiles are rendered on a fork-join pool and written as soon as they are done; a tile that fails to
+ * write doesn't stop the others, but [export] throws once the pyramid is finished. A parent is built
+ * once its children return, after which they are dropped, so memory stays around
+ * `parallelism * zoomLevels * 4` tiles no matter how large the region is.
+ *
+ * ```
+ * TiledMapExporter(File("tiles")).export(0, 0, 100_000, 100_000,
+ *     renderer = TiledMapExporter.biomeRenderer(ImageBiomeResolver, seedBase))
+ * ```
+ */
+class TiledMapExporter(
+    private val outputDir: File,
+    private val tileSize: Int = 512,
+    private val parallelism: Int = Runtime.getRuntime().availableProcessors()
+) {
+    init {
+        require(tileSize >= 2 && tileSize % 2 == 0) { "tileSize must be even, got $tileSize" }
+    }
+
+    /**
+     * Renders the [width] x [depth] block region starting at ([originX], [originZ]).
+     *
+     * @return the deepest zoom level written
+     * @throws IOException if any tile could not be written, after every other tile has been
+     * attempted; the individual failures are attached as suppressed exceptions
+     */
+    fun export(
+        originX: Int,
+        originZ: Int,
+        width: Int,
+        depth: Int,
+        blocksPerPixel: Int = 1,
+        renderer: TileRenderer
+    ): Int {
+        require(width > 0 && depth > 0) { "empty region ${width}x$depth" }
+        require(blocksPerPixel > 0) { "blocksPerPixel must be positive" }
+
+        val pixelsX = (width + blocksPerPixel - 1) / blocksPerPixel
+        val pixelsZ = (depth + blocksPerPixel - 1) / blocksPerPixel
+        val tilesX = (pixelsX + tileSize - 1) / tileSize
+        val tilesZ = (pixelsZ + tileSize - 1) / tileSize
+        var maxZoom = 0
+        while ((1 shl maxZoom) < maxOf(tilesX, tilesZ)) maxZoom++
+
+        val job = Job(originX, originZ, pixelsX, pixelsZ, blocksPerPixel, maxZoom, tilesX * tilesZ, renderer)
+        val start = System.currentTimeMillis()
+        val pool = ForkJoinPool(parallelism)
+        try {
+            pool.invoke(TileTask(job, 0, 0, 0))
+        } finally {
+            pool.shutdown()
+        }
+        println("Tile export: ${tilesX * tilesZ} tiles at zoom $maxZoom in ${System.currentTimeMillis() - start}ms")
+        if (job.failures.isNotEmpty()) {
+            val error = IOException("failed to write ${job.failures.size} tile(s) under ${outputDir.path}")
+            job.failures.forEach(error::addSuppressed)
+            throw error
+        }
+        return maxZoom
+    }
+
+    private class Job(
+        val originX: Int,
+        val originZ: Int,
+        val pixelsX: Int,
+        val pixelsZ: Int,
+        val step: Int,
+        val maxZoom: Int,
+        val leafCount: Int,
+        val renderer: TileRenderer
+    ) {
+        val leavesDone = AtomicInteger()
+        val failures = ConcurrentLinkedQueue<Exception>()
+    }
+
+    // Returns the tile's pixels, or null when it lies entirely outside the region.
+    private inner class TileTask(
+        private val job: Job,
+        private val zoom: Int,
+        private val tx: Int,
+        private val tz: Int
+    ) : RecursiveTask<IntArray?>() {
+        override fun compute(): IntArray? {
+            val span = tileSize shl (job.maxZoom - zoom) // full-resolution pixels covered by this tile
+            if (tx * span >= job.pixelsX || tz * span >= job.pixelsZ) return null
+            return if (zoom == job.maxZoom) renderLeaf() else mergeChildren()
+        }
+
+        private fun renderLeaf(): IntArray {
+            val px0 = tx * tileSize
+            val pz0 = tz * tileSize
+            val w = minOf(tileSize, job.pixelsX - px0)
+            val d = minOf(tileSize, job.pixelsZ - pz0)
+            val region = IntArray(w * d)
+            job.renderer.render(job.originX + px0 * job.step, job.originZ + pz0 * job.step, job.step, w, d, region)
+
+            // pixels past the region's edge stay transparent
+            val pixels = IntArray(tileSize * tileSize)
+            for (z in 0 until d) System.arraycopy(region, z * w, pixels, z * tileSize, w)
+            write(pixels)
+
+            val done = job.leavesDone.incrementAndGet()
+            if (done % maxOf(1, job.leafCount / 10) == 0) {
+                println("Tile export: ${done * 100 / job.leafCount}% (${done}/${job.leafCount})")
+            }
+            return pixels
+        }
+
+        private fun mergeChildren(): IntArray? {
+            val children = Array(4) { TileTask(job, zoom + 1, tx * 2 + (it and 1), tz * 2 + (it shr 1)) }
+            invokeAll(*children)
+            val results = children.map { it.join() }
+            if (results.all { it == null }) return null
+
+            val half = tileSize / 2
+            val pixels = IntArray(tileSize * tileSize)
+            for (c in 0 until 4) {
+                val child = results[c] ?: continue
+                val ox = (c and 1) * half
+                val oz = (c shr 1) * half
+                for (z in 0 until half) {
+                    val src = z * 2 * tileSize
+                    val dst = (oz + z) * tileSize + ox
+                    for (x in 0 until half) {
+                        val s = src + x * 2
+                        pixels[dst + x] = average(child[s], child[s + 1], child[s + tileSize], child[s + tileSize + 1])
+                    }
+                }
+            }
+            write(pixels)
+            return pixels
+        }
+
+        private fun write(pixels: IntArray) {
+            val image = BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB)
+            image.setRGB(0, 0, tileSize, tileSize, pixels, 0, tileSize)
+            val file = File(outputDir, "$zoom/$tx/$tz.png")
+            file.parentFile.mkdirs()
+            try {
+                if (!ImageIO.write(image, "png", file)) throw IOException("no PNG writer available")
+            } catch (ex: Exception) {
+                job.failures += IOException("failed to write ${file.path}", ex)
+            }
+        }
+    }
+
+    companion object {
+        /**
+         * Colours each pixel with the biome colour at its first block. At one block per pixel
+         * the whole tile is resolved in one [BiomeResolver.resolveBiomeGrid] call.
+         */
+        fun <B : PlatformBiome> biomeRenderer(resolver: BiomeResolver<B>, seed: Long, y: Int = 64) =
+            TileRenderer { worldX, worldZ, step, width, depth, out ->
+                if (step == 1) {
+                    val biomes = arrayOfNulls<PlatformBiome>(width * depth)
+                    resolver.resolveBiomeGrid(worldX, worldZ, width, depth, y, seed, biomes)
+                    for (i in biomes.indices) out[i] = OPAQUE or biomes[i]!!.biomeColor
+                } else {
+                    var i = 0
+                    for (pz in 0 until depth) {
+                        for (px in 0 until width) {
+                            out[i++] = OPAQUE or resolver.resolveBiome(worldX + px * step, y, worldZ + pz * step, seed).biomeColor
+                        }
+                    }
+                }
+            }
+
+        /**
+         * Grayscale rendering of a sampler returning -1..1, sampled at each pixel's centre, like
+         * [saveChannelImage].
+         */
+        fun channelRenderer(sampler: (Double, Double) -> Double) =
+            TileRenderer { worldX, worldZ, step, width, depth, out ->
+                var i = 0
+                for (pz in 0 until depth) {
+                    for (px in 0 until width) {
+                        val raw = sampler((worldX + px * step + step / 2).toDouble(), (worldZ + pz * step + step / 2).toDouble())
+                        val gray = (((raw + 1.0) / 2.0).coerceIn(0.0, 1.0) * 255).toInt()
+                        out[i++] = OPAQUE or (gray shl 16) or (gray shl 8) or gray
+                    }
+                }
+            }
+
+        private const val OPAQUE = -0x1000000 // 0xFF000000
+
+        // per-channel mean of four ARGB pixels; transparent pixels don't darken their neighbours
+        private fun average(a: Int, b: Int, c: Int, d: Int): Int {
+            val n = visible(a) + visible(b) + visible(c) + visible(d)
+            if (n == 0) return 0
+            val alpha = ((a ushr 24) + (b ushr 24) + (c ushr 24) + (d ushr 24)) / 4
+            val r = (channel(a, 16) + channel(b, 16) + channel(c, 16) + channel(d, 16)) / n
+            val g = (channel(a, 8) + channel(b, 8) + channel(c, 8) + channel(d, 8)) / n
+            val bl = (channel(a, 0) + channel(b, 0) + channel(c, 0) + channel(d, 0)) / n
+            return (alpha shl 24) or (r shl 16) or (g shl 8) or bl
+        }
+
+        private fun visible(p: Int): Int = if (p ushr 24 == 0) 0 else 1
+
+        private fun channel(p: Int, shift: Int): Int = if (p ushr 24 == 0) 0 else (p shr shift) and 0xFF
+    }
+}
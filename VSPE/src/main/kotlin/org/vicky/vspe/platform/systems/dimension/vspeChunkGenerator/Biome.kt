@@ -1,12 +1,14 @@
 package org.vicky.vspe.platform.systems.dimension.vspeChunkGenerator
 
+import com.github.benmanes.caffeine.cache.Cache
+import com.github.benmanes.caffeine.cache.Caffeine
 import org.vicky.platform.PlatformPlugin
 import org.vicky.platform.utils.ResourceLocation
-import org.vicky.platform.utils.Vec3
 import org.vicky.platform.world.PlatformBlockState
 import org.vicky.utilities.Identifiable
 import org.vicky.vspe.BiomeCategory
 import org.vicky.vspe.PrecipitationType
+import java.util.BitSet
 import java.util.concurrent.*
 import kotlin.math.abs
 import kotlin.math.floor
@@ -341,6 +343,7 @@ data class FeatureContext<T>(
 )
 
 interface NoiseSamplerProvider {
+    // features cache per sampler instance, so return the same sampler for an id where possible
     fun getSampler(id: ResourceLocation): NoiseSampler
 }
 
@@ -442,27 +445,132 @@ class CaveFeature<T>(
     // small helper
     private fun Double.ceilToInt(): Int = kotlin.math.ceil(this).toInt()
 
+    /**
+     * Evaluates the cave density for the whole chunk over [CaveFeatureConfig.verticalRange] and
+     * returns the carve mask.
+     *
+     * Density is sampled once per chunk on a [CAVE_LATTICE]-block lattice aligned to world
+     * coordinates (so neighbouring chunks share their border samples and caves stay seamless),
+     * then trilinearly interpolated per voxel. Each lattice level is shared by the Y levels around
+     * it instead of re-sampling a padded slice per Y.
+     */
+    fun carveChunk(chunkX: Int, chunkZ: Int, sampler: NoiseSampler, into: CaveMask? = null): CaveMask =
+        carve(chunkX, chunkZ, cfg.verticalRange.first, cfg.verticalRange.last, sampler, into)
+
+    /**
+     * Carves the whole chunk in one pass (see [carveChunk]) and clears each carved run as a
+     * column span. Chunk generators should prefer this over calling [place] per Y level.
+     */
+    fun placeChunk(chunkX: Int, chunkZ: Int, ctx: FeatureContext<T>) {
+        val mask = carveChunk(chunkX, chunkZ, ctx.noiseProvider.getSampler(cfg.noiseId))
+        val air = air()
+        val baseX = chunkX shl 4
+        val baseZ = chunkZ shl 4
+        mask.forEachSpan { cx, cz, fromY, toY ->
+            ctx.blockPlacer.placeColumn(baseX + cx, baseZ + cz, fromY, toY, air)
+        }
+    }
+
+    // mask over minY..maxY, interpolated from the lattice levels that bracket that range
+    private fun carve(chunkX: Int, chunkZ: Int, minY: Int, maxY: Int, sampler: NoiseSampler, into: CaveMask?): CaveMask {
+        val height = maxY - minY + 1
+        val mask = into?.takeIf { it.minY == minY && it.height == height }?.also { it.clear() } ?: CaveMask(minY, height)
+        if (height <= 0) return mask
+
+        val baseX = chunkX shl 4
+        val baseZ = chunkZ shl 4
+        val latticeY0 = Math.floorDiv(minY, CAVE_LATTICE) * CAVE_LATTICE
+        val levels = (maxY - latticeY0) / CAVE_LATTICE + 2
+        val side = 16 / CAVE_LATTICE + 1
+        val freq = cfg.frequencyScale
+        val vFreq = cfg.verticalFreqScale
+
+        // lattice[(iy * side + iz) * side + ix]
+        val lattice = DoubleArray(levels * side * side)
+        sampler.sampleGrid3D(
+            baseX * freq, latticeY0 * vFreq, baseZ * freq,
+            CAVE_LATTICE * freq, CAVE_LATTICE * vFreq, CAVE_LATTICE * freq,
+            side, levels, side, lattice
+        )
+
+        val threshold = cfg.threshold
+        val column = DoubleArray(levels)
+        for (z in 0 until 16) {
+            val iz = z / CAVE_LATTICE
+            val tz = (z % CAVE_LATTICE) / CAVE_LATTICE.toDouble()
+            for (x in 0 until 16) {
+                val ix = x / CAVE_LATTICE
+                val tx = (x % CAVE_LATTICE) / CAVE_LATTICE.toDouble()
+                // bilinear per lattice level first, then only a lerp per voxel
+                for (iy in 0 until levels) {
+                    val o = (iy * side + iz) * side + ix
+                    val a = lattice[o] + (lattice[o + 1] - lattice[o]) * tx
+                    val b = lattice[o + side] + (lattice[o + side + 1] - lattice[o + side]) * tx
+                    column[iy] = a + (b - a) * tz
+                }
+                val bit = ((z shl 4) or x) * height
+                for (y in minY..maxY) {
+                    val ly = y - latticeY0
+                    val iy = ly / CAVE_LATTICE
+                    val ty = (ly % CAVE_LATTICE) / CAVE_LATTICE.toDouble()
+                    val value = column[iy] + (column[iy + 1] - column[iy]) * ty
+                    if (value < threshold) mask.bits.set(bit + (y - minY))
+                }
+            }
+        }
+        return mask
+    }
+
+    /**
+     * Carves the Y = [y] slice of the chunk containing ([x], [z]). The slice is interpolated from
+     * the same lattice as [carveChunk], so slice-by-slice callers get the same caves.
+     */
     override fun place(x: Int, y: Int, z: Int, ctx: FeatureContext<T>) {
         val chunkX = x shr 4
         val chunkZ = z shr 4
-        val mask = generateCaveMaskSliceWithPadding(chunkX, chunkZ, y, ctx.noiseProvider.getSampler(cfg.noiseId))
-        var idx = 0
-        val baseX = chunkX * 16
-        val baseZ = chunkZ * 16
-        for (cz in 0 until 16) {
-            for (cx in 0 until 16) {
-                if (mask[idx++]) {
-                    val worldX = baseX + cx
-                    val worldZ = baseZ + cz
-                    ctx.blockPlacer.placeBlock(
-                        worldX.toInt(), y.toInt(), worldZ.toInt(),
-                        PlatformPlugin.stateFactory().getBlockState("minecraft:air") as PlatformBlockState<T>
-                    )
-                }
-            }
+        val mask = carve(chunkX, chunkZ, y, y, ctx.noiseProvider.getSampler(cfg.noiseId), null)
+        val air = air()
+        val baseX = chunkX shl 4
+        val baseZ = chunkZ shl 4
+        mask.forEachSpan { cx, cz, _, _ ->
+            ctx.blockPlacer.placeBlock(baseX + cx, y, baseZ + cz, air)
         }
     }
 
+    @Suppress("UNCHECKED_CAST")
+    private fun air(): PlatformBlockState<T> =
+        PlatformPlugin.stateFactory().getBlockState("minecraft:air") as PlatformBlockState<T>
+
+    companion object {
+        /** Spacing of the density lattice in blocks; must divide 16. */
+        const val CAVE_LATTICE = 4
+    }
+}
+
+/**
+ * Carve mask of one chunk over `minY until minY + height`. Columns are stored contiguously
+ * (bit `((z shl 4) or x) * height + (y - minY)`) so vertical runs come straight out of
+ * [BitSet.nextSetBit] / [BitSet.nextClearBit].
+ */
+class CaveMask(val minY: Int, val height: Int) {
+    val bits = BitSet(256 * maxOf(height, 0))
+
+    fun isCarved(x: Int, y: Int, z: Int): Boolean =
+        y - minY in 0 until height && bits.get(((z shl 4) or x) * height + (y - minY))
+
+    fun clear() = bits.clear()
+
+    /** Calls [span] with every vertical run of carved voxels (inclusive Y bounds), column by column. */
+    inline fun forEachSpan(span: (x: Int, z: Int, fromY: Int, toY: Int) -> Unit) {
+        var from = bits.nextSetBit(0)
+        while (from >= 0) {
+            val col = from / height
+            val colEnd = (col + 1) * height
+            val to = minOf(bits.nextClearBit(from), colEnd)
+            span(col and 15, col shr 4, minY + from - col * height, minY + to - 1 - col * height)
+            from = bits.nextSetBit(to)
+        }
+    }
 }
 
 class FloraFeature<T>(
@@ -510,31 +618,111 @@ class RiverFeature<T : PlatformBlockState<T>>(
     override val placement: FeaturePlacement = FeaturePlacement.PER_COLUMN
 ) : BiomeFeature<T> {
 
-    override fun shouldPlace(x: Int, y: Int, z: Int, ctx: FeatureContext<T>): Boolean {
-        val n = ctx.noiseProvider.getSampler(cfg.noiseId).sample(x.toDouble(), z.toDouble())
-        return abs(n) < cfg.bankFalloff
-    }
+    // field of the chunk handled last on this thread; per-column callers hit it 256 times in a row.
+    // Keyed by chunk, world seed and sampler instance; it holds the sampler but never the
+    // FeatureContext (or its world).
+    private val lastField = ThreadLocal<RiverChunkField?>()
+
+    override fun shouldPlace(x: Int, y: Int, z: Int, ctx: FeatureContext<T>): Boolean =
+        fieldFor(x shr 4, z shr 4, ctx).closeness(x and 15, z and 15) > 0.0
 
     override fun place(x: Int, y: Int, z: Int, ctx: FeatureContext<T>) {
-        val n = ctx.noiseProvider.getSampler(cfg.noiseId).sample(x.toDouble(), z.toDouble())
-        val absN = abs(n)
-        val closeness = 1.0 - (absN / cfg.bankFalloff).coerceIn(0.0, 1.0) // 1.0 at center
-        val depth = (closeness * cfg.riverDepth).toInt().coerceAtLeast(1)
+        val closeness = fieldFor(x shr 4, z shr 4, ctx).closeness(x and 15, z and 15)
+        if (closeness <= 0.0) return
+        carveColumn(x, z, closeness, ctx.blockPlacer.getHighestBlockAt(x, z), ctx.blockPlacer)
+    }
 
-        val surfaceY = ctx.blockPlacer.getHighestBlockAt(x.toInt(), z.toInt())
+    /**
+     * Carves every river column of the chunk in one pass. [surfaceHeights] (`[z * 16 + x]`) is the
+     * chunk's already computed surface, e.g. from [ChunkHeightProvider]; without it the placer is
+     * asked once per river column.
+     */
+    fun placeChunk(chunkX: Int, chunkZ: Int, ctx: FeatureContext<T>, surfaceHeights: IntArray? = null) {
+        val field = fieldFor(chunkX, chunkZ, ctx)
+        val baseX = chunkX shl 4
+        val baseZ = chunkZ shl 4
+        for (z in 0 until 16) {
+            for (x in 0 until 16) {
+                val closeness = field.closeness(x, z)
+                if (closeness <= 0.0) continue
+                val surfaceY = surfaceHeights?.get(z * 16 + x) ?: ctx.blockPlacer.getHighestBlockAt(baseX + x, baseZ + z)
+                carveColumn(baseX + x, baseZ + z, closeness, surfaceY, ctx.blockPlacer)
+            }
+        }
+    }
+
+    private fun carveColumn(x: Int, z: Int, closeness: Double, surfaceY: Int, placer: BlockPlacer<T>) {
+        val depth = (closeness * cfg.riverDepth).toInt().coerceAtLeast(1)
         // carve valley a bit using riverSpread
         val loweredY = surfaceY - (closeness * cfg.riverSpread).toInt()
 
-        // carve column down to bottom then fill water above, deposit at bottom
+        // deposit at the bottom, water above it
         val bottomY = loweredY - depth + 1
-        for (ty in bottomY..loweredY) {
-            val pos = Vec3(x.toDouble(), ty.toDouble(), z.toDouble())
-            if (ty == bottomY) {
-                ctx.blockPlacer.placeBlock(pos, cfg.depositBlock) // bottom/sediment
-            } else {
-                ctx.blockPlacer.placeBlock(pos, cfg.waterBlock)
+        placer.placeBlock(x, bottomY, z, cfg.depositBlock)
+        if (loweredY > bottomY) placer.placeColumn(x, z, bottomY + 1, loweredY, cfg.waterBlock)
+    }
+
+    private fun fieldFor(chunkX: Int, chunkZ: Int, ctx: FeatureContext<T>): RiverChunkField {
+        val sampler = ctx.noiseProvider.getSampler(cfg.noiseId)
+        val cached = lastField.get()
+        if (cached != null && cached.chunkX == chunkX && cached.chunkZ == chunkZ &&
+            cached.seed == ctx.worldSeed && cached.sampler === sampler
+        ) return cached
+        val field = RiverChunkField(chunkX, chunkZ, ctx.worldSeed, sampler, cfg.bankFalloff)
+        lastField.set(field)
+        return field
+    }
+
+    /**
+     * River closeness (1 at the centre line, 0 outside the banks) for the 16x16 columns of a chunk.
+     *
+     * The noise is sampled once over the chunk plus a [BANK_SMOOTHING]-block border, and each
+     * column takes the larger of its own closeness and the box-blurred closeness around it. The
+     * border comes from the same world-space noise the neighbours see, so banks line up across
+     * chunk edges whatever order chunks are generated in.
+     */
+    private class RiverChunkField(
+        val chunkX: Int,
+        val chunkZ: Int,
+        val seed: Long,
+        val sampler: NoiseSampler,
+        bankFalloff: Double
+    ) {
+        private val values = DoubleArray(256)
+
+        init {
+            val r = BANK_SMOOTHING
+            val side = 16 + 2 * r
+            val baseX = (chunkX shl 4) - r
+            val baseZ = (chunkZ shl 4) - r
+            val raw = DoubleArray(side * side)
+            sampler.sampleGrid2D(baseX.toDouble(), baseZ.toDouble(), 1.0, 1.0, side, side, raw)
+            for (i in raw.indices) raw[i] = 1.0 - (abs(raw[i]) / bankFalloff).coerceIn(0.0, 1.0)
+            // separable box blur: rows over the padded grid, then columns for the inner 16x16
+            val rows = DoubleArray(side * 16)
+            for (dz in 0 until side) {
+                for (x in 0 until 16) {
+                    var sum = 0.0
+                    for (k in 0..2 * r) sum += raw[dz * side + x + k]
+                    rows[dz * 16 + x] = sum
+                }
+            }
+            val area = ((2 * r + 1) * (2 * r + 1)).toDouble()
+            for (z in 0 until 16) {
+                for (x in 0 until 16) {
+                    var sum = 0.0
+                    for (k in 0..2 * r) sum += rows[(z + k) * 16 + x]
+                    values[z * 16 + x] = maxOf(raw[(z + r) * side + x + r], sum / area)
+                }
             }
         }
+
+        fun closeness(x: Int, z: Int): Double = values[z * 16 + x]
+    }
+
+    companion object {
+        /** Radius in blocks of the bank smoothing kernel. */
+        const val BANK_SMOOTHING = 2
     }
 }
 
@@ -554,10 +742,61 @@ sealed class RegionPlacement {
     data class Place(val originX: Int, val originZ: Int) : RegionPlacement()
 }
 
+/**
+ * Decides whether a region owns a feature. Implementations must be a pure function of
+ * (`ctx.worldSeed`, [regionX], [regionZ]); answers are memoized in [RegionOwnershipCache].
+ */
 fun interface RegionPlacer<T> {
     fun shouldPlaceRegion(ctx: FeatureContext<T>, regionX: Int, regionZ: Int): RegionPlacement
 }
 
+/** Ownership answer for one region, as returned by [RegionOwnershipCache.regionsIn]. */
+data class RegionOwnership(val regionX: Int, val regionZ: Int, val placement: RegionPlacement)
+
+/**
+ * Bounded, concurrent memo of [RegionPlacer] answers shared by every region-delegated feature.
+ * Entries are keyed by placer identity, world seed and region; each missing entry is computed
+ * once even when many chunks of the region ask for it at the same time.
+ */
+object RegionOwnershipCache {
+    private const val MAX_REGIONS = 65_536L
+
+    private data class Key(val placer: RegionPlacer<*>, val seed: Long, val regionX: Int, val regionZ: Int)
+
+    private val cache: Cache<Key, RegionPlacement> = Caffeine.newBuilder()
+        .maximumSize(MAX_REGIONS)
+        .build()
+
+    fun <T> get(placer: RegionPlacer<T>, ctx: FeatureContext<T>, regionX: Int, regionZ: Int): RegionPlacement =
+        cache.get(Key(placer, ctx.worldSeed, regionX, regionZ)) { placer.shouldPlaceRegion(ctx, regionX, regionZ) }
+
+    /**
+     * Ownership of every region overlapping the inclusive chunk rectangle, row by row. Missing
+     * regions are computed in one bulk load so a large feature can be planned up front.
+     */
+    fun <T> regionsIn(
+        placer: RegionPlacer<T>,
+        ctx: FeatureContext<T>,
+        regionSizeChunks: Int,
+        chunkX0: Int, chunkZ0: Int, chunkX1: Int, chunkZ1: Int
+    ): List<RegionOwnership> {
+        val rx0 = minOf(chunkX0, chunkX1) / regionSizeChunks
+        val rz0 = minOf(chunkZ0, chunkZ1) / regionSizeChunks
+        val rx1 = maxOf(chunkX0, chunkX1) / regionSizeChunks
+        val rz1 = maxOf(chunkZ0, chunkZ1) / regionSizeChunks
+        val keys = ArrayList<Key>((rx1 - rx0 + 1) * (rz1 - rz0 + 1))
+        for (rz in rz0..rz1) {
+            for (rx in rx0..rx1) keys += Key(placer, ctx.worldSeed, rx, rz)
+        }
+        val answers = cache.getAll(keys) { missing ->
+            missing.associateWith { placer.shouldPlaceRegion(ctx, it.regionX, it.regionZ) }
+        }
+        return keys.map { RegionOwnership(it.regionX, it.regionZ, answers.getValue(it)) }
+    }
+
+    fun clear() = cache.invalidateAll()
+}
+
 /**
  * Example generic function-based feature that delegates ownership to a region placer.
  * regionSize is the edge length in chunks of each region (e.g., 4 = 4x4 chunks region).
@@ -572,11 +811,8 @@ class RegionDelegatedFeature<T>(
 
     override fun shouldPlace(x: Int, y: Int, z: Int, ctx: FeatureContext<T>): Boolean {
         // region ownership is checked at chunk granularity: only the chunk that matches the region owner runs place
-        val regionX = ctx.chunkX / regionSizeChunks
-        val regionZ = ctx.chunkZ / regionSizeChunks
-        return when (placer.shouldPlaceRegion(ctx, regionX, regionZ)) {
+        return when (val origin = ownership(ctx)) {
             is RegionPlacement.Place -> {
-                val origin = (placer.shouldPlaceRegion(ctx, regionX, regionZ) as RegionPlacement.Place)
                 // do not duplicate: only owner chunk (where origin lies) should run place
                 val ownerChunkX = origin.originX shr 4
                 val ownerChunkZ = origin.originZ shr 4
@@ -588,11 +824,19 @@ class RegionDelegatedFeature<T>(
     }
 
     override fun place(x: Int, y: Int, z: Int, ctx: FeatureContext<T>) {
-        val regionX = ctx.chunkX / regionSizeChunks
-        val regionZ = ctx.chunkZ / regionSizeChunks
-        when (val res = placer.shouldPlaceRegion(ctx, regionX, regionZ)) {
+        when (val res = ownership(ctx)) {
             is RegionPlacement.Place -> proceed(res.originX, res.originZ, ctx)
             RegionPlacement.Skip -> {}
         }
     }
+
+    /**
+     * Ownership of every region of this feature overlapping the inclusive chunk rectangle, for
+     * planning placements that span several chunks.
+     */
+    fun regionsIn(ctx: FeatureContext<T>, chunkX0: Int, chunkZ0: Int, chunkX1: Int, chunkZ1: Int): List<RegionOwnership> =
+        RegionOwnershipCache.regionsIn(placer, ctx, regionSizeChunks, chunkX0, chunkZ0, chunkX1, chunkZ1)
+
+    private fun ownership(ctx: FeatureContext<T>): RegionPlacement =
+        RegionOwnershipCache.get(placer, ctx, ctx.chunkX / regionSizeChunks, ctx.chunkZ / regionSizeChunks)
 }
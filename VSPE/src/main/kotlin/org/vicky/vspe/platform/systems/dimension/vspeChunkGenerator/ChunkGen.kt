@@ -1,5 +1,6 @@
 package org.vicky.vspe.platform.systems.dimension.vspeChunkGenerator
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats
 import de.articdive.jnoise.interpolation.Interpolation
 import de.pauleff.api.ICompoundTag
 import org.vicky.platform.utils.Vec3
@@ -8,7 +9,6 @@ import org.vicky.platform.world.PlatformWorld
 import org.vicky.vspe.BiomeCategory
 import org.vicky.vspe.platform.VSPEPlatformPlugin
 import org.vicky.vspe.platform.systems.dimension.imagetester.seedBase
-import java.util.concurrent.ConcurrentHashMap
 import kotlin.math.hypot
 import kotlin.math.pow
 import kotlin.random.Random
@@ -40,6 +40,42 @@ interface BiomeResolver<B: PlatformBiome>{
     fun getBiomePalette(): Palette<B>
     fun resolveBiome(x: Int, y: Int, z: Int, seed: Long): B
     fun foggyAt(x: Int, y: Int): Boolean = false
+
+    /**
+     * Resolves every column of the [width] x [depth] rectangle starting at block ([x0], [z0]) into [out],
+     * row-major with x fastest: `out[dz * width + dx]`.
+     * The default just loops [resolveBiome]; resolvers override it to share noise samples and
+     * cache lookups between neighbouring columns.
+     */
+    fun resolveBiomeGrid(x0: Int, z0: Int, width: Int, depth: Int, y: Int, seed: Long, out: Array<in B>) {
+        var i = 0
+        for (dz in 0 until depth) {
+            for (dx in 0 until width) {
+                out[i++] = resolveBiome(x0 + dx, y, z0 + dz, seed)
+            }
+        }
+    }
+
+    /**
+     * Same as [resolveBiomeGrid] but stores `ordinalOf(biome)` for each column, for callers that keep
+     * biomes as palette indices.
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun resolveBiomeGrid(
+        x0: Int, z0: Int, width: Int, depth: Int, y: Int, seed: Long,
+        out: IntArray,
+        ordinalOf: (B) -> Int
+    ) {
+        val biomes = arrayOfNulls<PlatformBiome>(width * depth)
+        resolveBiomeGrid(x0, z0, width, depth, y, seed, biomes)
+        for (i in biomes.indices) out[i] = ordinalOf(biomes[i] as B)
+    }
+
+    /**
+     * Resolves the 16x16 columns of chunk ([chunkX], [chunkZ]) into [out] (`out[z * 16 + x]`).
+     */
+    fun resolveBiomeColumn(chunkX: Int, chunkZ: Int, y: Int, seed: Long, out: Array<in B>) =
+        resolveBiomeGrid(chunkX shl 4, chunkZ shl 4, 16, 16, y, seed, out)
 }
 
 interface ChunkData<T, B: PlatformBiome> {
@@ -53,6 +89,14 @@ interface BlockPlacer<T> {
     fun placeBlock(vec: Vec3, data: PlatformBlockState<T>?)
     fun placeBlock(vec: Vec3, data: PlatformBlockState<T>?, nbt: ICompoundTag)
     fun getHighestBlockAt(x: Int, z: Int): Int
+
+    /**
+     * Places [data] in every block of the column at ([x], [z]) from [fromY] to [toY] inclusive.
+     * The default loops [placeBlock]; placers backed by chunk sections can fill the run directly.
+     */
+    fun placeColumn(x: Int, z: Int, fromY: Int, toY: Int, data: PlatformBlockState<T>?) {
+        for (y in fromY..toY) placeBlock(x, y, z, data)
+    }
 }
 
 class EvenSpreadBiomeResolver<B: PlatformBiome>(
@@ -99,6 +143,18 @@ class NoiseBiomeResolver<B: PlatformBiome>(
         val value = noise.sample(nx, nz)
         return getBiomePalette().get(value, null)
     }
+
+    override fun resolveBiomeGrid(x0: Int, z0: Int, width: Int, depth: Int, y: Int, seed: Long, out: Array<in B>) {
+        val palette = getBiomePalette()
+        val n = width * depth
+        // x / 512.0 is exact for integer x, so x0 / 512.0 + i * (1 / 512.0) matches the point path bit for bit
+        GridScratch.use(n) { values ->
+            noise.sampleGrid2D(x0 / 512.0, z0 / 512.0, 1.0 / 512.0, 1.0 / 512.0, width, depth, values)
+            for (i in 0 until n) {
+                out[i] = palette.get(values[i], null)
+            }
+        }
+    }
 }
 
 /**
@@ -115,7 +171,8 @@ class MultiParameterBiomeResolver<T : PlatformBiome> @JvmOverloads constructor(
     private val continentNoise: NoiseSampler? = null,
     val seaLevel: Double = 0.30,
     val deepSeaLevel: Double = 0.2,
-    internal var isMerged: Boolean = false
+    internal var isMerged: Boolean = false,
+    tileCacheBytes: Long = ChunkMetaTileStore.DEFAULT_MAX_BYTES
 ) : BiomeResolver<T> {
 
     private val replacementMap: Map<BiomeCategory, BiomeCategory> = mapOf(
@@ -170,7 +227,27 @@ class MultiParameterBiomeResolver<T : PlatformBiome> @JvmOverloads constructor(
     private val maxSearchRadiusChunks = (distanceSampleMax / coarseCellSize).coerceAtLeast(8)
     private val MASK_BUCKETS = 256
     private var maskBuckets: Array<Array<BiomeEntry<T>>> = Array(MASK_BUCKETS) { emptyArray() }
-    private val chunkRngCache = ConcurrentHashMap<Long, java.util.SplittableRandom>()
+
+    // [maskBucket][categoryOrdinal] -> candidates, and per-category fallback when a bucket is empty
+    private var bucketCategoryCandidates: Array<Array<Array<BiomeEntry<T>>>> = Array(MASK_BUCKETS) { emptyArray() }
+    private var fallbackByCategory: Array<Array<BiomeEntry<T>>> = Array(BiomeCategory.entries.size) { emptyArray() }
+
+    // per-thread scratch so resolveBiome does not allocate
+    private class ResolveScratch {
+        var elev = 0.0
+        var temp = 0.0
+        var humid = 0.0
+        var rain = 0.0
+        var weights = DoubleArray(16)
+
+        fun weights(size: Int): DoubleArray {
+            if (weights.size < size) weights = DoubleArray(maxOf(size, weights.size * 2))
+            return weights
+        }
+    }
+
+    private val resolveScratch = ThreadLocal.withInitial { ResolveScratch() }
+
     init {
         rebuildCaches()
     }
@@ -232,15 +309,21 @@ class MultiParameterBiomeResolver<T : PlatformBiome> @JvmOverloads constructor(
             val dedup = tmpBuckets[i].distinctBy { it.biome } // or use Set if you prefer
             maskBuckets[i] = dedup.toTypedArray()
         }
-    }
 
-    private fun rngForChunk(cx: Int, cz: Int, seed: Long): java.util.SplittableRandom {
-        val key = chunkKey(cx, cz)
-        return chunkRngCache.computeIfAbsent(key) {
-            java.util.SplittableRandom(seed xor (cx.toLong() * 0x9E3779B97F4AL xor cz.toLong()))
+        // precompute the (bucket, category) filters and category fallbacks resolveBiome would otherwise build per call
+        val categoryCount = BiomeCategory.entries.size
+        bucketCategoryCandidates = Array(MASK_BUCKETS) { b ->
+            val bucket = maskBuckets[b]
+            if (bucket.isEmpty()) emptyArray()
+            else Array(categoryCount) { c -> bucket.filter { it.category.ordinal == c }.toTypedArray() }
         }
+        fallbackByCategory = Array(categoryCount) { c -> findCandidatesWithFallbackFast(intArrayOf(c)) }
     }
 
+    // per-chunk random stream, same sequence a SplittableRandom seeded this way would produce
+    private fun nextChunkRandom(tile: ChunkMetaTile, cx: Int, cz: Int, seed: Long): Double =
+        tile.nextDouble(ChunkMetaTile.indexOf(cx, cz), seed xor (cx.toLong() * 0x9E3779B97F4AL xor cz.toLong()))
+
     fun continentMask(x: Int, z: Int): Double {
         val noise = continentNoise ?: elevNoise
         return ((noise.sample(x * continentScale, z * continentScale) + 1.0) * 0.5).coerceIn(0.0, 1.0)
@@ -255,14 +338,29 @@ class MultiParameterBiomeResolver<T : PlatformBiome> @JvmOverloads constructor(
         val rainCenter: Double
     )
 
-    private val chunkMetaCache = ConcurrentHashMap<Long, ChunkMeta>()
-    private val chunkDistChunksCache = ConcurrentHashMap<Long, Int>()
+    // bounded, region-tiled replacement for the per-chunk meta / distance / rng maps
+    private val metaTiles = ChunkMetaTileStore(tileCacheBytes, ::fillTile)
+
     private fun chunkKey(cx: Int, cz: Int): Long = (cx.toLong() shl 32) or (cz.toLong() and 0xffffffffL)
+
+    private fun isLandChunk(cx: Int, cz: Int): Boolean =
+        metaTiles.tileForChunk(cx, cz).land[ChunkMetaTile.indexOf(cx, cz)]
+
+    private fun distChunksFor(tile: ChunkMetaTile, cx: Int, cz: Int): Int {
+        val idx = ChunkMetaTile.indexOf(cx, cz)
+        val cached = tile.distChunks[idx]
+        if (cached >= 0) return cached
+        // pure function of the chunk, so a racing thread writes the same value
+        val computed = computeChunkDistanceForChunk(cx, cz)
+        tile.distChunks[idx] = computed
+        return computed
+    }
+
     private fun computeChunkDistanceForChunk(cxOrigin: Int, czOrigin: Int): Int {
         val originKey = chunkKey(cxOrigin, czOrigin)
 
         // quick check: if origin chunk is land
-        if (getChunkMeta(cxOrigin, czOrigin).isLand) return 0
+        if (isLandChunk(cxOrigin, czOrigin)) return 0
 
         // BFS on chunk grid
         val maxRadius = maxSearchRadiusChunks
@@ -277,7 +375,7 @@ class MultiParameterBiomeResolver<T : PlatformBiome> @JvmOverloads constructor(
             for (i in 0 until levelSize) {
                 val (cx, cz) = q.removeFirst()
                 // if this chunk is land, compute center-distance (in chunks) to origin
-                if (getChunkMeta(cx, cz).isLand) {
+                if (isLandChunk(cx, cz)) {
                     val dx = cx - cxOrigin
                     val dz = cz - czOrigin
                     val distChunks = kotlin.math.sqrt((dx * dx + dz * dz).toDouble()).toInt()
@@ -297,71 +395,129 @@ class MultiParameterBiomeResolver<T : PlatformBiome> @JvmOverloads constructor(
         return maxRadius + 1
     }
 
-    private fun computeChunkMetaPure(cx: Int, cz: Int): ChunkMeta {
-        val centerX = cx * coarseCellSize + coarseCellSize / 2
-        val centerZ = cz * coarseCellSize + coarseCellSize / 2
-
+    /**
+     * Fills every chunk of a freshly loaded tile. Pure: only reads the noise samplers,
+     * never touches the tile store itself (the store calls this while loading).
+     */
+    private fun fillTile(tile: ChunkMetaTile) {
         val noiseForContinent = continentNoise ?: elevNoise
-        val mask =
-            ((noiseForContinent.sample(centerX * continentScale, centerZ * continentScale) + 1.0) * 0.5).coerceIn(
-                0.0,
-                1.0
-            )
-        val isLand = mask >= continentThreshold
-
-        // sample elevation with appropriate scale for land/ocean
-        val elevScale = if (isLand) landElevScale else oceanElevScale
-        val elev = ((elevNoise.sample(centerX * elevScale, centerZ * elevScale) + 1.0) * 0.5).coerceIn(0.0, 1.0)
-
-        val temp = ((tempNoise.sample(centerX * 0.005, centerZ * 0.005) + 1.0) * 0.5).coerceIn(0.0, 1.0)
-        val humid = ((humidNoise.sample(centerX * 0.01, centerZ * 0.01) + 1.0) * 0.5).coerceIn(0.0, 1.0)
-        val rain = ((rainNoise?.sample(centerX * 0.01, centerZ * 0.01) ?: 0.0) + 1.0) * 0.5
-
-        return ChunkMeta(mask, isLand, elev, temp, humid, rain)
+        val rainSampler = rainNoise
+        for (lz in 0 until ChunkMetaTile.TILE_SIZE) {
+            val cz = tile.minChunkZ + lz
+            val centerZ = cz * coarseCellSize + coarseCellSize / 2
+            for (lx in 0 until ChunkMetaTile.TILE_SIZE) {
+                val cx = tile.minChunkX + lx
+                val centerX = cx * coarseCellSize + coarseCellSize / 2
+                val i = ChunkMetaTile.indexOf(cx, cz)
+
+                val mask =
+                    ((noiseForContinent.sample(centerX * continentScale, centerZ * continentScale) + 1.0) * 0.5).coerceIn(
+                        0.0,
+                        1.0
+                    )
+                val isLand = mask >= continentThreshold
+
+                // sample elevation with appropriate scale for land/ocean
+                val elevScale = if (isLand) landElevScale else oceanElevScale
+                tile.mask[i] = mask
+                tile.land[i] = isLand
+                tile.elev[i] = ((elevNoise.sample(centerX * elevScale, centerZ * elevScale) + 1.0) * 0.5).coerceIn(0.0, 1.0)
+                tile.temp[i] = ((tempNoise.sample(centerX * 0.005, centerZ * 0.005) + 1.0) * 0.5).coerceIn(0.0, 1.0)
+                tile.humid[i] = ((humidNoise.sample(centerX * 0.01, centerZ * 0.01) + 1.0) * 0.5).coerceIn(0.0, 1.0)
+                tile.rain[i] = ((rainSampler?.sample(centerX * 0.01, centerZ * 0.01) ?: 0.0) + 1.0) * 0.5
+            }
+        }
     }
 
     /**
-     * Get chunk meta. This uses computeIfAbsent with a *pure* mapping function, so
-     * no nested computeIfAbsent or map mutation occurs inside the mapping.
+     * Snapshot of the cached per-chunk climate values (allocates; meant for tooling, not hot paths).
      */
-    private fun getChunkMeta(cx: Int, cz: Int): ChunkMeta {
-        val key = chunkKey(cx, cz)
-        // computeIfAbsent is safe because computeChunkMetaPure does not touch other
-        // concurrent maps nor have side-effects besides returning the meta.
-        return chunkMetaCache.computeIfAbsent(key) { computeChunkMetaPure(cx, cz) }
+    fun getChunkMeta(cx: Int, cz: Int): ChunkMeta {
+        val tile = metaTiles.tileForChunk(cx, cz)
+        val i = ChunkMetaTile.indexOf(cx, cz)
+        return ChunkMeta(tile.mask[i], tile.land[i], tile.elev[i], tile.temp[i], tile.humid[i], tile.rain[i])
     }
 
-    // Optional manual warm/caching helper for an area (call before heavy generation)
+    // Optional manual warm/caching helper for an area (call before heavy generation).
+    // Loads whole 32x32-chunk tiles, in parallel.
     fun precomputeChunkRegion(cx0: Int, cz0: Int, cx1: Int, cz1: Int) {
-        for (cz in cz0..cz1) {
-            for (cx in cx0..cx1) {
-                val key = chunkKey(cx, cz)
-                if (!chunkMetaCache.containsKey(key)) {
-                    // compute & put (computeIfAbsent avoided to keep explicit)
-                    val meta = computeChunkMetaPure(cx, cz)
-                    chunkMetaCache.putIfAbsent(key, meta)
-                }
-            }
-        }
+        metaTiles.precompute(cx0, cz0, cx1, cz1)
     }
+
+    /** Hit rate, load and eviction counters of the chunk meta tile cache. */
+    fun tileCacheStats(): CacheStats = metaTiles.stats()
+
+    /** Approximate heap held by cached chunk meta tiles. */
+    fun tileCacheBytes(): Long = metaTiles.estimatedBytes()
+
     override fun resolveBiome(x: Int, y: Int, z: Int, seed: Long): T {
         val cx = x shr 4
         val cz = z shr 4
-        val key = chunkKey(cx, cz)
-        val localRand = rngForChunk(cx, cz, seed).nextDouble()
-        val meta = chunkMetaCache.computeIfAbsent(key) { computeChunkMetaPure(cx, cz) }
+        val tile = metaTiles.tileForChunk(cx, cz)
+        return resolveInChunk(x, z, seed, cx, cz, tile, distChunksFor(tile, cx, cz), resolveScratch.get())
+    }
+
+    /**
+     * Batch variant: the tile and distance-to-land lookups are done once per chunk instead of once per column.
+     * Columns are resolved in the same order a caller looping over [resolveBiome] would use, so the
+     * per-chunk random streams advance identically.
+     */
+    override fun resolveBiomeGrid(x0: Int, z0: Int, width: Int, depth: Int, y: Int, seed: Long, out: Array<in T>) {
+        val scratch = resolveScratch.get()
+        var lastCx = 0
+        var lastCz = 0
+        var tile: ChunkMetaTile? = null
+        var distChunks = 0
+        var i = 0
+        for (dz in 0 until depth) {
+            val z = z0 + dz
+            val cz = z shr 4
+            for (dx in 0 until width) {
+                val x = x0 + dx
+                val cx = x shr 4
+                val cached = tile
+                val current: ChunkMetaTile
+                if (cached != null && cx == lastCx && cz == lastCz) {
+                    current = cached
+                } else {
+                    current = if (cached != null &&
+                        (cx shr ChunkMetaTile.TILE_SHIFT) == cached.tileX &&
+                        (cz shr ChunkMetaTile.TILE_SHIFT) == cached.tileZ
+                    ) cached else metaTiles.tileForChunk(cx, cz)
+                    distChunks = distChunksFor(current, cx, cz)
+                    tile = current
+                    lastCx = cx
+                    lastCz = cz
+                }
+                out[i++] = resolveInChunk(x, z, seed, cx, cz, current, distChunks, scratch)
+            }
+        }
+    }
+
+    private fun resolveInChunk(
+        x: Int,
+        z: Int,
+        seed: Long,
+        cx: Int,
+        cz: Int,
+        tile: ChunkMetaTile,
+        distChunks: Int,
+        scratch: ResolveScratch
+    ): T {
+        val metaIdx = ChunkMetaTile.indexOf(cx, cz)
+        val localRand = nextChunkRandom(tile, cx, cz, seed)
 
         // read precomputed stuff
-        val isLand = meta.isLand
-        val distChunks = chunkDistChunksCache.computeIfAbsent(key) { computeChunkDistanceForChunk(cx, cz) }
+        val isLand = tile.land[metaIdx]
         val distBlocksApprox = distChunks * coarseCellSize
         val openOcean = !isLand && distBlocksApprox > deepSeaDistance
 
-        // fast bilinear interpolation of climate/elev using chunk centres
-        val elev = bilinearSampleElevation(x, z)
-        val t = bilinearSampleTemp(x, z)
-        val h = bilinearSampleHumid(x, z)
-        val r = bilinearSampleRain(x, z)
+        // fast bilinear interpolation of climate/elev using chunk centres (one fetch for all channels)
+        sampleClimate(x, z, tile, scratch)
+        val elev = scratch.elev
+        val t = scratch.temp
+        val h = scratch.humid
+        val r = scratch.rain
 
         // choose category using cheap checks (same as before)
         val chosenCategoryOrdinal = when {
@@ -424,13 +580,13 @@ class MultiParameterBiomeResolver<T : PlatformBiome> @JvmOverloads constructor(
         }
 
         // candidate selection: use squared-distance mapping (no sqrt)
-        val maskValue = meta.mask // or continentMask(x,z)
+        val maskValue = tile.mask[metaIdx] // or continentMask(x,z)
         val bucketIdx = ((maskValue.coerceIn(0.0, 1.0) * (MASK_BUCKETS - 1))).toInt()
-        val bucketCandidates = maskBuckets[bucketIdx]
+        val bucketCandidates = bucketCategoryCandidates[bucketIdx]
         val candidates = if (bucketCandidates.isNotEmpty()) {
-            bucketCandidates.filter { it.category.ordinal == chosenCategoryOrdinal }.toTypedArray()
+            bucketCandidates[chosenCategoryOrdinal]
         } else {
-            findCandidatesWithFallbackFast(intArrayOf(chosenCategoryOrdinal))
+            fallbackByCategory[chosenCategoryOrdinal]
         }
         if (candidates.isEmpty()) return allEntriesCached.firstOrNull()?.biome ?: palette.map.values.first()
 
@@ -438,8 +594,8 @@ class MultiParameterBiomeResolver<T : PlatformBiome> @JvmOverloads constructor(
         // weight = max(0, 1 - (sqDist / S)), pick S = 4.0 (tune)
         val S = 4.0  // max allowed squared distance; tune to compress/expand attraction radius
         var totalWeight = 0.0
-        // use local array to avoid allocations
-        val localWeights = DoubleArray(candidates.size)
+        // thread-local scratch to avoid allocations
+        val localWeights = scratch.weights(candidates.size)
         for (i in candidates.indices) {
             val ent = candidates[i]
             val dt = ent.temp - t
@@ -452,11 +608,10 @@ class MultiParameterBiomeResolver<T : PlatformBiome> @JvmOverloads constructor(
             totalWeight += w
         }
 
-        val rng = rngForChunk(cx, cz, seed)
         val pickIdx = if (totalWeight <= 0.0) {
-            (rng.nextDouble() * candidates.size).toInt().coerceAtMost(candidates.size - 1)
+            (nextChunkRandom(tile, cx, cz, seed) * candidates.size).toInt().coerceAtMost(candidates.size - 1)
         } else {
-            var pw = rng.nextDouble() * totalWeight
+            var pw = nextChunkRandom(tile, cx, cz, seed) * totalWeight
             var picked = -1
             for (i in candidates.indices) {
                 pw -= localWeights[i]
@@ -509,64 +664,35 @@ class MultiParameterBiomeResolver<T : PlatformBiome> @JvmOverloads constructor(
     }
 
     /**
-     * Sample elevation at arbitrary block coords using bilinear interpolation of chunk centers.
-     * Falls back to a direct noise sample if a neighbor chunk meta is missing (shouldn't happen if you precompute).
+     * Bilinear interpolation of every climate channel at arbitrary block coords from the four
+     * surrounding chunk centres. The neighbouring tiles are looked up once (usually all four
+     * chunks share [tile00]) and the results are written into [out].
      */
-    private fun bilinearSampleElevation(x: Int, z: Int): Double {
-        val cx = x shr 4
-        val cz = z shr 4
-        val tx = ((x - (cx shl 4)).toDouble()) / 16.0
-        val tz = ((z - (cz shl 4)).toDouble()) / 16.0
-
-        // neighbor coords
-        val m00 = chunkMetaCache[chunkKey(cx, cz)] ?: getChunkMeta(cx, cz)
-        val m10 = chunkMetaCache[chunkKey(cx + 1, cz)] ?: getChunkMeta(cx + 1, cz)
-        val m01 = chunkMetaCache[chunkKey(cx, cz + 1)] ?: getChunkMeta(cx, cz + 1)
-        val m11 = chunkMetaCache[chunkKey(cx + 1, cz + 1)] ?: getChunkMeta(cx + 1, cz + 1)
-
-        return bilinear(m00.elevCenter, m10.elevCenter, m01.elevCenter, m11.elevCenter, tx, tz)
-    }
-
-    private fun bilinearSampleTemp(x: Int, z: Int): Double {
-        val cx = x shr 4
-        val cz = z shr 4
-        val tx = ((x - (cx shl 4)).toDouble()) / 16.0
-        val tz = ((z - (cz shl 4)).toDouble()) / 16.0
-
-        val m00 = chunkMetaCache[chunkKey(cx, cz)] ?: getChunkMeta(cx, cz)
-        val m10 = chunkMetaCache[chunkKey(cx + 1, cz)] ?: getChunkMeta(cx + 1, cz)
-        val m01 = chunkMetaCache[chunkKey(cx, cz + 1)] ?: getChunkMeta(cx, cz + 1)
-        val m11 = chunkMetaCache[chunkKey(cx + 1, cz + 1)] ?: getChunkMeta(cx + 1, cz + 1)
-
-        return bilinear(m00.tempCenter, m10.tempCenter, m01.tempCenter, m11.tempCenter, tx, tz)
-    }
-
-    private fun bilinearSampleHumid(x: Int, z: Int): Double {
+    private fun sampleClimate(x: Int, z: Int, tile00: ChunkMetaTile, out: ResolveScratch) {
         val cx = x shr 4
         val cz = z shr 4
         val tx = ((x - (cx shl 4)).toDouble()) / 16.0
         val tz = ((z - (cz shl 4)).toDouble()) / 16.0
 
-        val m00 = chunkMetaCache[chunkKey(cx, cz)] ?: getChunkMeta(cx, cz)
-        val m10 = chunkMetaCache[chunkKey(cx + 1, cz)] ?: getChunkMeta(cx + 1, cz)
-        val m01 = chunkMetaCache[chunkKey(cx, cz + 1)] ?: getChunkMeta(cx, cz + 1)
-        val m11 = chunkMetaCache[chunkKey(cx + 1, cz + 1)] ?: getChunkMeta(cx + 1, cz + 1)
-
-        return bilinear(m00.humidCenter, m10.humidCenter, m01.humidCenter, m11.humidCenter, tx, tz)
-    }
-
-    private fun bilinearSampleRain(x: Int, z: Int): Double {
-        val cx = x shr 4
-        val cz = z shr 4
-        val tx = ((x - (cx shl 4)).toDouble()) / 16.0
-        val tz = ((z - (cz shl 4)).toDouble()) / 16.0
+        val edgeX = (cx and (ChunkMetaTile.TILE_SIZE - 1)) == ChunkMetaTile.TILE_SIZE - 1
+        val edgeZ = (cz and (ChunkMetaTile.TILE_SIZE - 1)) == ChunkMetaTile.TILE_SIZE - 1
+        val tile10 = if (edgeX) metaTiles.tileForChunk(cx + 1, cz) else tile00
+        val tile01 = if (edgeZ) metaTiles.tileForChunk(cx, cz + 1) else tile00
+        val tile11 = when {
+            edgeX && edgeZ -> metaTiles.tileForChunk(cx + 1, cz + 1)
+            edgeX -> tile10
+            else -> tile01
+        }
 
-        val m00 = chunkMetaCache[chunkKey(cx, cz)] ?: getChunkMeta(cx, cz)
-        val m10 = chunkMetaCache[chunkKey(cx + 1, cz)] ?: getChunkMeta(cx + 1, cz)
-        val m01 = chunkMetaCache[chunkKey(cx, cz + 1)] ?: getChunkMeta(cx, cz + 1)
-        val m11 = chunkMetaCache[chunkKey(cx + 1, cz + 1)] ?: getChunkMeta(cx + 1, cz + 1)
+        val i00 = ChunkMetaTile.indexOf(cx, cz)
+        val i10 = ChunkMetaTile.indexOf(cx + 1, cz)
+        val i01 = ChunkMetaTile.indexOf(cx, cz + 1)
+        val i11 = ChunkMetaTile.indexOf(cx + 1, cz + 1)
 
-        return bilinear(m00.rainCenter, m10.rainCenter, m01.rainCenter, m11.rainCenter, tx, tz)
+        out.elev = bilinear(tile00.elev[i00], tile10.elev[i10], tile01.elev[i01], tile11.elev[i11], tx, tz)
+        out.temp = bilinear(tile00.temp[i00], tile10.temp[i10], tile01.temp[i01], tile11.temp[i11], tx, tz)
+        out.humid = bilinear(tile00.humid[i00], tile10.humid[i10], tile01.humid[i01], tile11.humid[i11], tx, tz)
+        out.rain = bilinear(tile00.rain[i00], tile10.rain[i10], tile01.rain[i01], tile11.rain[i11], tx, tz)
     }
 }
 
@@ -615,6 +741,52 @@ class ContinentBiomeResolver<T : PlatformBiome>(
     }
 
     override fun resolveBiome(x: Int, y: Int, z: Int, seed: Long): T {
+        return when (columnKind(x, z)) {
+            KIND_SEEDED_DEEP_OCEAN -> deepOceanPalette.map.values.random(Random(seed)) // deterministic choice below
+            KIND_DEEP_OCEAN -> deepOceanPalette.map.values.random()
+            KIND_OCEAN -> oceanPalette.map.values.random()
+            KIND_MOUNTAIN -> biomeNoise.palette.map.values.first { it.category == BiomeCategory.MOUNTAIN }
+            KIND_COAST -> biomeNoise.palette.map.values.first { it.category == BiomeCategory.COAST }
+            else -> biomeNoise.resolveBiome(x, y, z, seed)
+        }
+    }
+
+    /**
+     * Batch variant: the seed-derived deep ocean pick and the mountain/coast palette lookups are
+     * resolved at most once per call instead of once per column.
+     */
+    override fun resolveBiomeGrid(x0: Int, z0: Int, width: Int, depth: Int, y: Int, seed: Long, out: Array<in T>) {
+        var seededDeepOcean: T? = null
+        var mountain: T? = null
+        var coast: T? = null
+        var i = 0
+        for (dz in 0 until depth) {
+            val z = z0 + dz
+            for (dx in 0 until width) {
+                val x = x0 + dx
+                out[i++] = when (columnKind(x, z)) {
+                    KIND_SEEDED_DEEP_OCEAN -> seededDeepOcean
+                        ?: deepOceanPalette.map.values.random(Random(seed)).also { seededDeepOcean = it }
+                    KIND_DEEP_OCEAN -> deepOceanPalette.map.values.random()
+                    KIND_OCEAN -> oceanPalette.map.values.random()
+                    KIND_MOUNTAIN -> mountain
+                        ?: biomeNoise.palette.map.values.first { it.category == BiomeCategory.MOUNTAIN }.also { mountain = it }
+                    KIND_COAST -> coast
+                        ?: biomeNoise.palette.map.values.first { it.category == BiomeCategory.COAST }.also { coast = it }
+                    else -> biomeNoise.resolveBiome(x, y, z, seed)
+                }
+            }
+        }
+    }
+
+    // Smoothstep helper
+    private fun smoothStep(edge0: Double, edge1: Double, t: Double): Double {
+        val tt = ((t - edge0) / (edge1 - edge0)).coerceIn(0.0, 1.0)
+        return tt * tt * (3.0 - 2.0 * tt) // classic smoothstep
+    }
+
+    // classifies a column from the continent/elevation noise; one of the KIND_* constants
+    private fun columnKind(x: Int, z: Int): Int {
         val continentFeatureSize = 500.0        // ~4k blocks for each big continent (tweak)
         val continentScale = 1.0 / continentFeatureSize
 
@@ -622,12 +794,6 @@ class ContinentBiomeResolver<T : PlatformBiome>(
         val base = continentNoise.sample(x * continentScale, z * continentScale) // -1..1
         val baseN = ((base + 1.0) / 2.0).coerceIn(0.0, 1.0) // 0..1 mask value
 
-        // Smoothstep helper
-        fun smoothStep(edge0: Double, edge1: Double, t: Double): Double {
-            val tt = ((t - edge0) / (edge1 - edge0)).coerceIn(0.0, 1.0)
-            return tt * tt * (3.0 - 2.0 * tt) // classic smoothstep
-        }
-
         // falloff region around threshold (coast size)
         val falloff = 0.06 // 6% falloff width — tweak to make coast thicker/thinner
         val landT = landThreshold.coerceIn(0.0, 1.0)
@@ -636,9 +802,7 @@ class ContinentBiomeResolver<T : PlatformBiome>(
         val landMask = smoothStep(landT - falloff, landT + falloff, baseN)
 
         // Deep ocean / shallow ocean decision
-        if (baseN < deepSeaLevel) {
-            return deepOceanPalette.map.values.random(Random(seed)) // deterministic choice below
-        }
+        if (baseN < deepSeaLevel) return KIND_SEEDED_DEEP_OCEAN
 
         // Now sample elevation (use different scale)
         val elevScale = 1.0 / 600.0 // finer than continent, coarser than local noise
@@ -663,20 +827,28 @@ class ContinentBiomeResolver<T : PlatformBiome>(
         // classification: deep ocean, ocean, coast, mountain, land
         if (landMask < 0.01) {
             // far ocean
-            return deepOceanPalette.map.values.random()
+            return KIND_DEEP_OCEAN
         } else if (landMask < 0.15) {
             // nearshore shallow ocean
-            return oceanPalette.map.values.random()
+            return KIND_OCEAN
         }
 
         // now land: choose special categories by elevation
-        when {
-            finalElev > mountainThreshold -> return biomeNoise.palette.map.values.first { it.category == BiomeCategory.MOUNTAIN }
-            finalElev < coastThreshold -> return biomeNoise.palette.map.values.first { it.category == BiomeCategory.COAST }
-            else -> return biomeNoise.resolveBiome(x, y, z, seed)
+        return when {
+            finalElev > mountainThreshold -> KIND_MOUNTAIN
+            finalElev < coastThreshold -> KIND_COAST
+            else -> KIND_LAND
         }
     }
 
+    private companion object {
+        const val KIND_SEEDED_DEEP_OCEAN = 0
+        const val KIND_DEEP_OCEAN = 1
+        const val KIND_OCEAN = 2
+        const val KIND_MOUNTAIN = 3
+        const val KIND_COAST = 4
+        const val KIND_LAND = 5
+    }
 }
 
 fun computeAdaptiveThreshold(noise: NoiseSampler, targetOceanRatio: Double): Double {
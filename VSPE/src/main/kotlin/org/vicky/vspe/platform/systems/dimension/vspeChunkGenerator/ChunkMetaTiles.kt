@@ -0,0 +1,145 @@
+package org.vicky.vspe.platform.systems.dimension.vspeChunkGenerator
+
+import com.github.benmanes.caffeine.cache.Caffeine
+import com.github.benmanes.caffeine.cache.LoadingCache
+import com.github.benmanes.caffeine.cache.stats.CacheStats
+import java.util.concurrent.atomic.AtomicIntegerArray
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.stream.IntStream
+
+/**
+ * One 32x32-chunk tile of per-chunk biome data, stored as flat primitive arrays.
+ * Index layout: `(cz and 31) shl 5 or (cx and 31)` (see [indexOf]).
+ *
+ * Climate channels are filled once when the tile is loaded and never change afterwards.
+ * [distChunks] and the per-chunk RNG are filled lazily because they are either expensive
+ * (BFS over neighbouring tiles) or depend on the caller's seed.
+ */
+class ChunkMetaTile(val tileX: Int, val tileZ: Int) {
+    val mask = DoubleArray(TILE_AREA)
+    val elev = DoubleArray(TILE_AREA)
+    val temp = DoubleArray(TILE_AREA)
+    val humid = DoubleArray(TILE_AREA)
+    val rain = DoubleArray(TILE_AREA)
+    val land = BooleanArray(TILE_AREA)
+
+    // -1 = not computed yet. Values are a pure function of the chunk so racing writers agree.
+    val distChunks = IntArray(TILE_AREA).also { it.fill(-1) }
+
+    // SplittableRandom-compatible state per chunk: 0 = unset, 1 = initialising, 2 = ready
+    private val rngFlags = AtomicIntegerArray(TILE_AREA)
+    private val rngSeeds = AtomicLongArray(TILE_AREA)
+
+    // set once the store drops this tile, so per-thread shortcuts stop handing it out
+    @Volatile
+    internal var evicted = false
+
+    val minChunkX: Int get() = tileX shl TILE_SHIFT
+    val minChunkZ: Int get() = tileZ shl TILE_SHIFT
+
+    /**
+     * Equivalent to calling `nextDouble()` on a `SplittableRandom(initialSeed)` kept per chunk,
+     * without holding an object per chunk.
+     */
+    fun nextDouble(index: Int, initialSeed: Long): Double {
+        if (rngFlags.get(index) != 2) {
+            if (rngFlags.compareAndSet(index, 0, 1)) {
+                rngSeeds.set(index, initialSeed)
+                rngFlags.set(index, 2)
+            } else {
+                while (rngFlags.get(index) != 2) Thread.onSpinWait()
+            }
+        }
+        val s = rngSeeds.addAndGet(index, GOLDEN_GAMMA)
+        return (mix64(s) ushr 11) * DOUBLE_UNIT
+    }
+
+    companion object {
+        const val TILE_SHIFT = 5
+        const val TILE_SIZE = 1 shl TILE_SHIFT
+        const val TILE_AREA = TILE_SIZE * TILE_SIZE
+
+        /** Approximate retained size of one tile, used for the memory budget. */
+        const val TILE_BYTES: Long = TILE_AREA * (5L * 8 + 1 + 4 + 4 + 8) + 256
+
+        private const val GOLDEN_GAMMA = -0x61c8864680b583ebL // 0x9e3779b97f4a7c15
+        private const val DOUBLE_UNIT = 1.0 / 9007199254740992.0 // 2^-53
+
+        fun indexOf(cx: Int, cz: Int): Int = ((cz and (TILE_SIZE - 1)) shl TILE_SHIFT) or (cx and (TILE_SIZE - 1))
+
+        fun tileKey(tileX: Int, tileZ: Int): Long = (tileX.toLong() shl 32) or (tileZ.toLong() and 0xffffffffL)
+
+        private fun mix64(z0: Long): Long {
+            var z = z0
+            z = (z xor (z ushr 30)) * -0x40a7b892e31b1a47L // 0xbf58476d1ce4e5b9
+            z = (z xor (z ushr 27)) * -0x6b2fb644ecceee15L // 0x94d049bb133111eb
+            return z xor (z ushr 31)
+        }
+    }
+}
+
+/**
+ * Memory-bounded store of [ChunkMetaTile]s. Tiles are built whole by [filler] the first
+ * time any chunk inside them is touched (single-flight per tile) and evicted once the
+ * store exceeds [maxBytes].
+ */
+class ChunkMetaTileStore(
+    maxBytes: Long,
+    private val filler: (ChunkMetaTile) -> Unit
+) {
+    private val tiles: LoadingCache<Long, ChunkMetaTile> = Caffeine.newBuilder()
+        .maximumSize((maxBytes / ChunkMetaTile.TILE_BYTES).coerceAtLeast(MIN_TILES))
+        .recordStats()
+        .removalListener<Long, ChunkMetaTile> { _, tile, _ -> tile?.evicted = true }
+        .build<Long, ChunkMetaTile> { key ->
+            ChunkMetaTile((key shr 32).toInt(), key.toInt()).also(filler)
+        }
+
+    // last tiles this thread used, one slot per (tileX, tileZ) parity so a 2x2 neighbourhood fits
+    private val recent = ThreadLocal.withInitial { arrayOfNulls<ChunkMetaTile>(4) }
+
+    /**
+     * Tile holding chunk ([cx], [cz]). Repeat lookups of the thread's recent tiles skip the cache,
+     * so the common case neither boxes a key nor touches Caffeine.
+     */
+    fun tileForChunk(cx: Int, cz: Int): ChunkMetaTile {
+        val tx = cx shr ChunkMetaTile.TILE_SHIFT
+        val tz = cz shr ChunkMetaTile.TILE_SHIFT
+        val slots = recent.get()
+        val slot = ((tx and 1) shl 1) or (tz and 1)
+        val hit = slots[slot]
+        if (hit != null && hit.tileX == tx && hit.tileZ == tz && !hit.evicted) return hit
+        val tile = tiles.get(ChunkMetaTile.tileKey(tx, tz))
+        slots[slot] = tile
+        return tile
+    }
+
+    /**
+     * Loads every tile overlapping the inclusive chunk rectangle, filling missing tiles in parallel.
+     */
+    fun precompute(cx0: Int, cz0: Int, cx1: Int, cz1: Int) {
+        val tx0 = minOf(cx0, cx1) shr ChunkMetaTile.TILE_SHIFT
+        val tz0 = minOf(cz0, cz1) shr ChunkMetaTile.TILE_SHIFT
+        val tx1 = maxOf(cx0, cx1) shr ChunkMetaTile.TILE_SHIFT
+        val tz1 = maxOf(cz0, cz1) shr ChunkMetaTile.TILE_SHIFT
+        val width = tx1 - tx0 + 1
+        val count = width * (tz1 - tz0 + 1)
+        IntStream.range(0, count).parallel().forEach { i ->
+            tiles.get(ChunkMetaTile.tileKey(tx0 + i % width, tz0 + i / width))
+        }
+    }
+
+    /** Hit/miss/eviction counters for the tile cache. */
+    fun stats(): CacheStats = tiles.stats()
+
+    fun tileCount(): Long = tiles.estimatedSize()
+
+    fun estimatedBytes(): Long = tiles.estimatedSize() * ChunkMetaTile.TILE_BYTES
+
+    fun clear() = tiles.invalidateAll()
+
+    companion object {
+        const val DEFAULT_MAX_BYTES: Long = 64L shl 20
+        private const val MIN_TILES = 16L
+    }
+}
@@ -186,4 +186,55 @@ class VickyMapGen<T : PlatformBiome>(
             biomeMap.values.first().first().second
         }
     }
+
+    /**
+     * Batch variant: samples the three climate noises for the whole rectangle up front and
+     * snapshots each category's weights once per call, so per column only the rule lookup and
+     * the weighted pick remain.
+     */
+    override fun resolveBiomeGrid(x0: Int, z0: Int, width: Int, depth: Int, y: Int, seed: Long, out: Array<in T>) {
+        val n = width * depth
+        val rain = DoubleArray(n)
+        val elev = DoubleArray(n)
+        val temp = DoubleArray(n)
+        val bx = x0.toDouble()
+        val bz = z0.toDouble()
+        rainNoise.sampleGrid2D(bx, bz, 1.0, 1.0, width, depth, rain)
+        elevNoise.sampleGrid2D(bx, bz, 1.0, 1.0, width, depth, elev)
+        tempNoise.sampleGrid2D(bx, bz, 1.0, 1.0, width, depth, temp)
+
+        val snapshots = arrayOfNulls<CategoryWeights<T>>(BiomeCategory.entries.size)
+        for (j in 0 until n) {
+            val category = getForParams(rain[j], elev[j], temp[j])
+            val weights = snapshots[category.ordinal]
+                ?: CategoryWeights.of(biomeMap[category]).also { snapshots[category.ordinal] = it }
+            out[j] = weights?.pick() ?: biomeMap.values.first().first().second
+        }
+    }
+
+    // immutable copy of one category's (weight, biome) list for repeated weighted picks
+    private class CategoryWeights<T>(
+        private val weights: DoubleArray,
+        private val biomes: List<T>,
+        private val total: Double
+    ) {
+        // same distribution as weightedRandomOrNullD, falling back to the first biome
+        fun pick(): T {
+            if (total <= 0.0) return biomes.first()
+            var r = kotlin.random.Random.nextDouble() * total
+            for (i in weights.indices) {
+                r -= weights[i]
+                if (r <= 0.0) return biomes[i]
+            }
+            return biomes.last()
+        }
+
+        companion object {
+            fun <T> of(list: List<Pair<Double, T>>?): CategoryWeights<T>? {
+                if (list.isNullOrEmpty()) return null
+                val weights = DoubleArray(list.size) { list[it].first }
+                return CategoryWeights(weights, list.map { it.second }, weights.sum())
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -21,6 +21,94 @@ interface NoiseSampler {
     fun sample1D(x: Double): Double = 0.0
     fun sample(x: Double, z: Double): Double
     fun sample3D(x: Double, y: Double, z: Double): Double
+
+    /**
+     * Fills [out] with `sample(x0 + i * stepX, z0 + j * stepZ)` for a `width x depth` lattice.
+     * Layout is row-major with x fastest: `out[j * width + i]`.
+     *
+     * Implementations override this to work on whole arrays instead of paying per-point dispatch;
+     * results must stay identical to point sampling.
+     */
+    fun sampleGrid2D(
+        x0: Double, z0: Double,
+        stepX: Double, stepZ: Double,
+        width: Int, depth: Int,
+        out: DoubleArray
+    ) {
+        requireGrid(out, width * depth)
+        var idx = 0
+        for (j in 0 until depth) {
+            val z = z0 + j * stepZ
+            for (i in 0 until width) {
+                out[idx++] = sample(x0 + i * stepX, z)
+            }
+        }
+    }
+
+    /**
+     * Fills [out] with `sample3D` over a `width x height x depth` lattice.
+     * Layout is y-major, then z, then x: `out[(k * depth + j) * width + i]`,
+     * so one y-slice is laid out exactly like [sampleGrid2D].
+     */
+    fun sampleGrid3D(
+        x0: Double, y0: Double, z0: Double,
+        stepX: Double, stepY: Double, stepZ: Double,
+        width: Int, height: Int, depth: Int,
+        out: DoubleArray
+    ) {
+        requireGrid(out, width * height * depth)
+        var idx = 0
+        for (k in 0 until height) {
+            val y = y0 + k * stepY
+            for (j in 0 until depth) {
+                val z = z0 + j * stepZ
+                for (i in 0 until width) {
+                    out[idx++] = sample3D(x0 + i * stepX, y, z)
+                }
+            }
+        }
+    }
+}
+
+internal fun requireGrid(out: DoubleArray, size: Int) {
+    require(out.size >= size) { "Grid output too small: ${out.size} < $size" }
+}
+
+/**
+ * Per-thread scratch arrays for combinators that need a second grid while filling the first.
+ * Each nesting depth gets its own buffer so nested composites never clobber each other.
+ */
+internal object GridScratch {
+    private val pool = ThreadLocal.withInitial { ArrayList<DoubleArray>() }
+    private val depth = ThreadLocal.withInitial { IntArray(1) }
+
+    inline fun <R> use(size: Int, block: (DoubleArray) -> R): R {
+        val buf = acquire(size)
+        try {
+            return block(buf)
+        } finally {
+            release()
+        }
+    }
+
+    @PublishedApi
+    internal fun acquire(size: Int): DoubleArray {
+        val d = depth.get()
+        val list = pool.get()
+        val level = d[0]++
+        if (level == list.size) list.add(DoubleArray(size))
+        var buf = list[level]
+        if (buf.size < size) {
+            buf = DoubleArray(size)
+            list[level] = buf
+        }
+        return buf
+    }
+
+    @PublishedApi
+    internal fun release() {
+        depth.get()[0]--
+    }
 }
 
 /**
@@ -441,6 +529,45 @@ class JNoiseNoiseSampler @JvmOverloads constructor(
         val v = base.evaluateNoise(x, y, z)
         return ((v - min) / (max - min)).coerceIn(0.0, 1.0)
     }
+
+    override fun sampleGrid2D(
+        x0: Double, z0: Double,
+        stepX: Double, stepZ: Double,
+        width: Int, depth: Int,
+        out: DoubleArray
+    ) {
+        requireGrid(out, width * depth)
+        val lo = min
+        val range = max - min
+        var idx = 0
+        for (j in 0 until depth) {
+            val z = z0 + j * stepZ
+            for (i in 0 until width) {
+                out[idx++] = ((base.evaluateNoise(x0 + i * stepX, z) - lo) / range).coerceIn(0.0, 1.0)
+            }
+        }
+    }
+
+    override fun sampleGrid3D(
+        x0: Double, y0: Double, z0: Double,
+        stepX: Double, stepY: Double, stepZ: Double,
+        width: Int, height: Int, depth: Int,
+        out: DoubleArray
+    ) {
+        requireGrid(out, width * height * depth)
+        val lo = min
+        val range = max - min
+        var idx = 0
+        for (k in 0 until height) {
+            val y = y0 + k * stepY
+            for (j in 0 until depth) {
+                val z = z0 + j * stepZ
+                for (i in 0 until width) {
+                    out[idx++] = ((base.evaluateNoise(x0 + i * stepX, y, z) - lo) / range).coerceIn(0.0, 1.0)
+                }
+            }
+        }
+    }
 }
 
 open class CompositeNoiseLayer(
@@ -470,6 +597,50 @@ open class CompositeNoiseLayer(
         }
         return total / totalWeight
     }
+
+    override fun sampleGrid2D(
+        x0: Double, z0: Double,
+        stepX: Double, stepZ: Double,
+        width: Int, depth: Int,
+        out: DoubleArray
+    ) {
+        val n = width * depth
+        requireGrid(out, n)
+        out.fill(0.0, 0, n)
+        if (layers.isEmpty()) return
+        GridScratch.use(n) { layerOut ->
+            for ((layer, weight) in layers) {
+                layer.sampleGrid2D(x0, z0, stepX, stepZ, width, depth, layerOut)
+                for (i in 0 until n) {
+                    out[i] += ((layerOut[i] + 1) / 2.0) * weight
+                }
+            }
+        }
+    }
+
+    override fun sampleGrid3D(
+        x0: Double, y0: Double, z0: Double,
+        stepX: Double, stepY: Double, stepZ: Double,
+        width: Int, height: Int, depth: Int,
+        out: DoubleArray
+    ) {
+        val n = width * height * depth
+        requireGrid(out, n)
+        out.fill(0.0, 0, n)
+        var totalWeight = 0.0
+        if (layers.isNotEmpty()) {
+            GridScratch.use(n) { layerOut ->
+                for ((layer, weight) in layers) {
+                    layer.sampleGrid3D(x0, y0, z0, stepX, stepY, stepZ, width, height, depth, layerOut)
+                    for (i in 0 until n) {
+                        out[i] += layerOut[i] * weight
+                    }
+                    totalWeight += weight
+                }
+            }
+        }
+        for (i in 0 until n) out[i] /= totalWeight
+    }
 }
 
 
@@ -684,6 +855,43 @@ class MaskedNoiseSampler(
         val s = source.sample3D(x, y, z)
         return s * m.pow(maskExponent)
     }
+
+    override fun sampleGrid2D(
+        x0: Double, z0: Double,
+        stepX: Double, stepZ: Double,
+        width: Int, depth: Int,
+        out: DoubleArray
+    ) {
+        val n = width * depth
+        requireGrid(out, n)
+        source.sampleGrid2D(x0, z0, stepX, stepZ, width, depth, out)
+        GridScratch.use(n) { maskOut ->
+            mask.sampleGrid2D(x0, z0, stepX, stepZ, width, depth, maskOut)
+            applyMask(out, maskOut, n)
+        }
+    }
+
+    override fun sampleGrid3D(
+        x0: Double, y0: Double, z0: Double,
+        stepX: Double, stepY: Double, stepZ: Double,
+        width: Int, height: Int, depth: Int,
+        out: DoubleArray
+    ) {
+        val n = width * height * depth
+        requireGrid(out, n)
+        source.sampleGrid3D(x0, y0, z0, stepX, stepY, stepZ, width, height, depth, out)
+        GridScratch.use(n) { maskOut ->
+            mask.sampleGrid3D(x0, y0, z0, stepX, stepY, stepZ, width, height, depth, maskOut)
+            applyMask(out, maskOut, n)
+        }
+    }
+
+    private fun applyMask(out: DoubleArray, maskOut: DoubleArray, n: Int) {
+        for (i in 0 until n) {
+            val m = (maskOut[i] + 1.0) / 2.0
+            out[i] = out[i] * m.pow(maskExponent)
+        }
+    }
 }
 
 /**
@@ -702,6 +910,26 @@ class RidgedWrapper(private val inner: NoiseSampler) : NoiseSampler {
         val v = inner.sample3D(x, y, z)
         return 1.0 - abs(v)
     }
+
+    override fun sampleGrid2D(
+        x0: Double, z0: Double,
+        stepX: Double, stepZ: Double,
+        width: Int, depth: Int,
+        out: DoubleArray
+    ) {
+        inner.sampleGrid2D(x0, z0, stepX, stepZ, width, depth, out)
+        for (i in 0 until width * depth) out[i] = 1.0 - abs(out[i])
+    }
+
+    override fun sampleGrid3D(
+        x0: Double, y0: Double, z0: Double,
+        stepX: Double, stepY: Double, stepZ: Double,
+        width: Int, height: Int, depth: Int,
+        out: DoubleArray
+    ) {
+        inner.sampleGrid3D(x0, y0, z0, stepX, stepY, stepZ, width, height, depth, out)
+        for (i in 0 until width * height * depth) out[i] = 1.0 - abs(out[i])
+    }
 }
 
 /**
@@ -714,8 +942,19 @@ class HeightMapper(
     private val baseY: Int,
     private val maxY: Int
 ) : NoiseSampler {
-    override fun sample(x: Double, z: Double): Double {
-        val raw = sampler.sample(x, z)
+    override fun sample(x: Double, z: Double): Double = toHeight(sampler.sample(x, z))
+
+    override fun sampleGrid2D(
+        x0: Double, z0: Double,
+        stepX: Double, stepZ: Double,
+        width: Int, depth: Int,
+        out: DoubleArray
+    ) {
+        sampler.sampleGrid2D(x0, z0, stepX, stepZ, width, depth, out)
+        for (i in 0 until width * depth) out[i] = toHeight(out[i])
+    }
+
+    private fun toHeight(raw: Double): Double {
         // try to normalize to 0..1 — account for possible 0..1 outputs too
         val v = when {
             raw <= -1.0 -> 0.0
@@ -729,6 +968,13 @@ class HeightMapper(
     override fun getSeed(): Long = 0L
 
     override fun sample3D(x: Double, y: Double, z: Double): Double = error("HeightMapper cannot create 3d heights")
+
+    override fun sampleGrid3D(
+        x0: Double, y0: Double, z0: Double,
+        stepX: Double, stepY: Double, stepZ: Double,
+        width: Int, height: Int, depth: Int,
+        out: DoubleArray
+    ): Unit = error("HeightMapper cannot create 3d heights")
 }
 
 /**
@@ -1377,10 +1623,128 @@ class VoronoiSampler internal constructor(
         }.coerceIn(0.0, 1.0)
     }
 
+    // Fixed-dimension fast paths. They visit neighbours in the same order as sampleND's offset
+    // list (first axis outermost) and do the arithmetic in the same order, so results are
+    // bit-identical, but nothing is allocated per sample.
+
+    private fun cellHash2(cx: Int, cy: Int): Long {
+        var h = seed
+        h = h * HASH_PRIME + mixCoord(cx)
+        h = h * HASH_PRIME + mixCoord(cy)
+        return hash64(h)
+    }
+
+    private fun cellHash3(cx: Int, cy: Int, cz: Int): Long {
+        var h = seed
+        h = h * HASH_PRIME + mixCoord(cx)
+        h = h * HASH_PRIME + mixCoord(cy)
+        h = h * HASH_PRIME + mixCoord(cz)
+        return hash64(h)
+    }
+
+    // offset of the feature point from the cell centre along one axis, in [-jitter/2, jitter/2]
+    private fun jitterAxis(cellHash: Long, axis: Int): Double =
+        (hashToDouble01(hash64(cellHash + axis.toLong() * HASH_PRIME)) - 0.5) * jitter
+
+    private fun distSquared2(dx: Double, dy: Double): Double = when (distanceMetric) {
+        VoronoiDistance.EUCLIDEAN -> dx * dx + dy * dy
+        VoronoiDistance.MANHATTAN -> { val s = abs(dx) + abs(dy); s * s }
+        VoronoiDistance.CHEBYSHEV -> { val m = max(max(0.0, abs(dx)), abs(dy)); m * m }
+    }
+
+    private fun distSquared3(dx: Double, dy: Double, dz: Double): Double = when (distanceMetric) {
+        VoronoiDistance.EUCLIDEAN -> dx * dx + dy * dy + dz * dz
+        VoronoiDistance.MANHATTAN -> { val s = abs(dx) + abs(dy) + abs(dz); s * s }
+        VoronoiDistance.CHEBYSHEV -> { val m = max(max(max(0.0, abs(dx)), abs(dy)), abs(dz)); m * m }
+    }
+
+    private fun sample2D(x: Double, y: Double): Double {
+        val sx = x * frequency
+        val sy = y * frequency
+        val cx = floor(sx).toInt()
+        val cy = floor(sy).toInt()
+
+        var best1 = Double.POSITIVE_INFINITY
+        var best2 = Double.POSITIVE_INFINITY
+        var bestCellHash1 = 0L
+
+        for (ox in -1..1) {
+            val nx = cx + ox
+            for (oy in -1..1) {
+                val ny = cy + oy
+                val cellHash = cellHash2(nx, ny)
+                val dx = nx.toDouble() + 0.5 + jitterAxis(cellHash, 0) - sx
+                val dy = ny.toDouble() + 0.5 + jitterAxis(cellHash, 1) - sy
+                val distSq = distSquared2(dx, dy)
+                if (distSq < best1) {
+                    best2 = best1
+                    best1 = distSq; bestCellHash1 = cellHash
+                } else if (distSq < best2) {
+                    best2 = distSq
+                }
+            }
+        }
+        return finish(best1, best2, bestCellHash1, SQRT_2, 2.0)
+    }
+
+    private fun sample3D(x: Double, y: Double, z: Double): Double {
+        val sx = x * frequency
+        val sy = y * frequency
+        val sz = z * frequency
+        val cx = floor(sx).toInt()
+        val cy = floor(sy).toInt()
+        val cz = floor(sz).toInt()
+
+        var best1 = Double.POSITIVE_INFINITY
+        var best2 = Double.POSITIVE_INFINITY
+        var bestCellHash1 = 0L
+
+        for (ox in -1..1) {
+            val nx = cx + ox
+            val fx = nx.toDouble() + 0.5
+            for (oy in -1..1) {
+                val ny = cy + oy
+                val fy = ny.toDouble() + 0.5
+                for (oz in -1..1) {
+                    val nz = cz + oz
+                    val cellHash = cellHash3(nx, ny, nz)
+                    val dx = fx + jitterAxis(cellHash, 0) - sx
+                    val dy = fy + jitterAxis(cellHash, 1) - sy
+                    val dz = nz.toDouble() + 0.5 + jitterAxis(cellHash, 2) - sz
+                    val distSq = distSquared3(dx, dy, dz)
+                    if (distSq < best1) {
+                        best2 = best1
+                        best1 = distSq; bestCellHash1 = cellHash
+                    } else if (distSq < best2) {
+                        best2 = distSq
+                    }
+                }
+            }
+        }
+        return finish(best1, best2, bestCellHash1, SQRT_3, 3.0)
+    }
+
+    // return-mode selection and normalisation, mirroring the tail of sampleND
+    private fun finish(best1: Double, best2: Double, bestCellHash1: Long, euclidMax: Double, manhattanMax: Double): Double {
+        val out = when (returnMode) {
+            VoronoiReturn.F1 -> best1
+            VoronoiReturn.F2 -> best2
+            VoronoiReturn.F2_MINUS_F1 -> (best2 - best1)
+            VoronoiReturn.CELL_VALUE -> (hashToDouble01(bestCellHash1) * 2.0) - 1.0
+        }
+        if (!normalized) return out
+        val maxDist = when (distanceMetric) {
+            VoronoiDistance.EUCLIDEAN -> euclidMax
+            VoronoiDistance.MANHATTAN -> manhattanMax
+            VoronoiDistance.CHEBYSHEV -> 1.0
+        }
+        return (sqrt(out) / maxDist).coerceIn(0.0, 1.0)
+    }
+
     // public samplers
     fun sample1(x: Double) = sampleND(x)
-    fun sample2(x: Double, y: Double) = sampleND(x, y)
-    fun sample3(x: Double, y: Double, z: Double) = sampleND(x, y, z)
+    fun sample2(x: Double, y: Double) = sample2D(x, y)
+    fun sample3(x: Double, y: Double, z: Double) = sample3D(x, y, z)
     fun sample4(x: Double, y: Double, z: Double, w: Double) = sampleND(x, y, z, w)
 
     override fun evaluateNoise(x: Double, seed: Long): Double = sample1(x)
@@ -1460,6 +1824,14 @@ class VoronoiSampler internal constructor(
     ): DefaultedNoiseResult  = DefaultedNoiseResult(sample4(x, y, z, w))
 
     override fun getSeed(): Long = seed
+
+    private companion object {
+        const val HASH_PRIME = -7046029254386353131L
+        val SQRT_2 = sqrt(2.0)
+        val SQRT_3 = sqrt(3.0)
+
+        fun mixCoord(c: Int): Long = c.toLong() xor (c.toLong() shl 32)
+    }
 }
 
 class VoronoiBuilder(): NoiseBuilder<DefaultedNoiseResult, VoronoiBuilder>() {
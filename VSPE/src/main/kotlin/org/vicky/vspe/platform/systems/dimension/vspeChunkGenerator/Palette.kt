@@ -55,12 +55,17 @@ fun <K, T> MutableMap<K, T>.getKey(t: T): K {
  *  - addUnderwater(depth0,depth1,block)    // underwater depth relative to seaLevel
  *  - addPredicate { y, top, depth, sea -> ... } // fully custom
  *
- * Call getFor(y, columnTopY, seaLevel) to evaluate (preferred).
+ * Call getFor(y, columnTopY, seaLevel) to evaluate (preferred), or fillColumn(...) for a whole column.
+ * Entries are compiled into per-priority interval tables on first use, so lookups don't scan the list.
  */
 class BiomeBlockDistributionPalette<T : PlatformBlockState<*>> {
     private val entries = mutableListOf<Entry<T>>()
     private var rng: Random = Random.Default
 
+    // lookup tables built from `entries` on first query; dropped whenever entries change
+    @Volatile
+    private var compiled: Compiled<T>? = null
+
     // 1) priority enum
     enum class Priority(val rank: Int) {
         PREDICATE(1),
@@ -163,6 +168,7 @@ class BiomeBlockDistributionPalette<T : PlatformBlockState<*>> {
     fun addAbsolute(y0: Int, y1: Int, value: T, weight: Double = 1.0) {
         require(weight >= 0.0)
         entries.add(AbsoluteEntry(y0, y1, value, weight))
+        compiled = null
     }
 
     /**
@@ -172,6 +178,7 @@ class BiomeBlockDistributionPalette<T : PlatformBlockState<*>> {
     fun addDepthLayer(depth0: Int, depth1: Int, value: T, weight: Double = 1.0) {
         require(weight >= 0.0)
         entries.add(DepthEntry(depth0, depth1, value, weight))
+        compiled = null
     }
 
     /**
@@ -181,6 +188,7 @@ class BiomeBlockDistributionPalette<T : PlatformBlockState<*>> {
     fun addShoreLayer(belowSea: Int = 2, aboveSea: Int = 1, value: T, weight: Double = 1.0) {
         require(belowSea >= 0 && aboveSea >= 0 && weight >= 0.0)
         entries.add(ShoreEntry(belowSea, aboveSea, value, weight))
+        compiled = null
     }
 
     /**
@@ -190,6 +198,7 @@ class BiomeBlockDistributionPalette<T : PlatformBlockState<*>> {
     fun addUnderwaterLayer(depth0: Int, depth1: Int, value: T, weight: Double = 1.0) {
         require(depth0 >= 0 && depth1 >= 0 && weight >= 0.0)
         entries.add(UnderwaterEntry(depth0, depth1, value, weight))
+        compiled = null
     }
 
     /**
@@ -198,6 +207,7 @@ class BiomeBlockDistributionPalette<T : PlatformBlockState<*>> {
     fun addPredicate(pred: (Int, Int, Int) -> Boolean, value: T, weight: Double = 1.0) {
         require(weight >= 0.0)
         entries.add(PredicateEntry(pred, value, weight))
+        compiled = null
     }
 
     /**
@@ -231,12 +241,39 @@ class BiomeBlockDistributionPalette<T : PlatformBlockState<*>> {
     }
 
     fun getFor(x: Int, y: Int, z: Int, columnTopY: Int, seaLevel: Int = 63): T {
-        val matches = entries.filter { it.matches(y, columnTopY, seaLevel) }
-        if (matches.isEmpty()) error("No matching palette entry at $y (top=$columnTopY, sea=$seaLevel)")
+        val c = compiledTables()
+        val shore = c.shore.groupFor(columnTopY.toLong() - seaLevel)
+        return resolve(c, shore, x, y, z, columnTopY, seaLevel)
+    }
+
+    /**
+     * Fills a whole column in one pass: `out[i]` receives the block for `y = topY - i`, so
+     * `out[0]` is the column top and the array length decides how deep the column goes.
+     * Produces the same blocks (and consumes the same random draws) as calling [getFor] top-down.
+     */
+    fun fillColumn(x: Int, z: Int, topY: Int, seaLevel: Int, out: Array<in T>) {
+        val c = compiledTables()
+        // the shore key only depends on the column, so it is resolved once
+        val shore = c.shore.groupFor(topY.toLong() - seaLevel)
+        for (i in out.indices) {
+            out[i] = resolve(c, shore, x, topY - i, z, topY, seaLevel)
+        }
+    }
+
+    // same precedence as the entry priorities: SHORE > UNDERWATER > ABSOLUTE > DEPTH > NOISE > PREDICATE
+    private fun resolve(c: Compiled<T>, shore: Group<T>?, x: Int, y: Int, z: Int, columnTopY: Int, seaLevel: Int): T {
+        val group = shore
+            ?: c.underwater.groupFor(seaLevel.toLong() - y)
+            ?: c.absolute.groupFor(y.toLong())
+            ?: c.depth.groupFor(columnTopY.toLong() - y)
+            ?: c.noise.groupFor(y.toLong())
+            ?: predicateGroup(c.predicates, y, columnTopY, seaLevel)
+            ?: error("No matching palette entry at $y (top=$columnTopY, sea=$seaLevel)")
+        return pick(group, x, y, z)
+    }
 
-        // pick the highest priority group present
-        val bestRank = matches.maxOf { it.priority.rank }
-        val candidates = matches.filter { it.priority.rank == bestRank }
+    private fun pick(group: Group<T>, x: Int, y: Int, z: Int): T {
+        val candidates = group.entries
 
         // If single candidate and it's noise, let it pick
         if (candidates.size == 1 && candidates[0] is NoiseEntry<*>) {
@@ -245,13 +282,14 @@ class BiomeBlockDistributionPalette<T : PlatformBlockState<*>> {
         }
 
         // weighted selection inside candidate group
-        val totalWeight = candidates.sumOf { it.weight }
-        if (totalWeight <= 0.0) return candidates.random(rng).value!!
+        if (group.totalWeight <= 0.0) return candidates.random(rng).value!!
 
-        var pick = rng.nextDouble() * totalWeight
-        for (e in candidates) {
-            pick -= e.weight
+        var pick = rng.nextDouble() * group.totalWeight
+        val weights = group.weights
+        for (i in candidates.indices) {
+            pick -= weights[i]
             if (pick <= 0.0) {
+                val e = candidates[i]
                 return if (e is NoiseEntry<*>) {
                     @Suppress("UNCHECKED_CAST")
                     (e as NoiseEntry<T>).pick(x, y, z)
@@ -263,8 +301,105 @@ class BiomeBlockDistributionPalette<T : PlatformBlockState<*>> {
         return candidates.last().value!!
     }
 
+    // predicates are opaque, so they stay a linear scan; they are only reached when nothing else matches
+    private fun predicateGroup(predicates: List<Entry<T>>, y: Int, columnTopY: Int, seaLevel: Int): Group<T>? {
+        if (predicates.isEmpty()) return null
+        val matches = predicates.filter { it.matches(y, columnTopY, seaLevel) }
+        return if (matches.isEmpty()) null else Group(matches)
+    }
+
+    private fun compiledTables(): Compiled<T> {
+        compiled?.let { return it }
+        synchronized(this) {
+            compiled?.let { return it }
+            return Compiled.of(entries.toList()).also { compiled = it }
+        }
+    }
+
+    // one priority class' matching entries, in insertion order, with their weights unpacked
+    private class Group<T>(val entries: List<Entry<T>>) {
+        val weights = DoubleArray(entries.size) { entries[it].weight }
+        val totalWeight = entries.sumOf { it.weight }
+    }
+
+    /**
+     * Entries of one priority class keyed by a single scalar (y, depth, underwater depth or
+     * top-minus-sea). The key axis is cut at every interval edge; inside each segment the
+     * matching set is fixed, so a lookup is a binary search over a handful of edges.
+     */
+    private class IntervalIndex<T>(
+        private val starts: LongArray,
+        private val groups: Array<Group<T>?>
+    ) {
+        fun groupFor(key: Long): Group<T>? {
+            var lo = 0
+            var hi = starts.size - 1
+            var found = -1
+            while (lo <= hi) {
+                val mid = (lo + hi) ushr 1
+                if (starts[mid] <= key) { found = mid; lo = mid + 1 } else hi = mid - 1
+            }
+            return if (found < 0) null else groups[found]
+        }
+
+        companion object {
+            private val EMPTY = IntervalIndex<Any?>(LongArray(0), arrayOfNulls(0))
+
+            fun <T> of(entries: List<Entry<T>>, range: (Entry<T>) -> LongRange): IntervalIndex<T> {
+                if (entries.isEmpty()) {
+                    @Suppress("UNCHECKED_CAST")
+                    return EMPTY as IntervalIndex<T>
+                }
+                val ranges = entries.map(range)
+                val edges = sortedSetOf<Long>()
+                for (r in ranges) {
+                    edges.add(r.first)
+                    edges.add(r.last + 1)
+                }
+                val starts = edges.toLongArray()
+                val groups = arrayOfNulls<Group<T>>(starts.size)
+                for (i in starts.indices) {
+                    val matching = entries.filterIndexed { j, _ -> starts[i] in ranges[j] }
+                    if (matching.isNotEmpty()) groups[i] = Group(matching)
+                }
+                return IntervalIndex(starts, groups)
+            }
+        }
+    }
+
+    private class Compiled<T>(
+        val shore: IntervalIndex<T>,
+        val underwater: IntervalIndex<T>,
+        val absolute: IntervalIndex<T>,
+        val depth: IntervalIndex<T>,
+        val noise: IntervalIndex<T>,
+        val predicates: List<Entry<T>>
+    ) {
+        companion object {
+            private fun span(a: Int, b: Int): LongRange = min(a, b).toLong()..max(a, b).toLong()
+
+            fun <T> of(entries: List<Entry<T>>): Compiled<T> {
+                val byPriority = entries.groupBy { it.priority }
+                fun index(p: Priority, range: (Entry<T>) -> LongRange) =
+                    IntervalIndex.of(byPriority[p].orEmpty(), range)
+
+                return Compiled(
+                    // ShoreEntry matches when columnTopY - seaLevel is in [-belowSea, aboveSea]
+                    shore = index(Priority.SHORE) { e -> (e as ShoreEntry<T>).let { -it.belowSea.toLong()..it.aboveSea.toLong() } },
+                    underwater = index(Priority.UNDERWATER) { e -> (e as UnderwaterEntry<T>).let { span(it.depth0, it.depth1) } },
+                    absolute = index(Priority.ABSOLUTE) { e -> (e as AbsoluteEntry<T>).let { span(it.y0, it.y1) } },
+                    depth = index(Priority.DEPTH) { e -> (e as DepthEntry<T>).let { span(it.depth0, it.depth1) } },
+                    noise = index(Priority.NOISE) { e -> (e as NoiseEntry<T>).let { span(it.y0, it.y1) } },
+                    predicates = byPriority[Priority.PREDICATE].orEmpty()
+                )
+            }
+        }
+    }
 
-    fun clear() = entries.clear()
+    fun clear() {
+        entries.clear()
+        compiled = null
+    }
     fun getEntries(): List<Entry<T>> = entries.toList()
 
     fun setRandom(r: Random) {
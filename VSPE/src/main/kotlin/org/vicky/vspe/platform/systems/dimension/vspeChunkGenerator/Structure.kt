@@ -424,7 +424,9 @@ class ProceduralStructure<T : ProceduralStructureGenerator.BaseBuilder<BST, *>,
 ) : PlatformStructure<BST>
 {
     private val chunkToKey = ConcurrentHashMap<ChunkCoord, ResolvedKey>()
-    private val generationLimit = Semaphore(1)
+    // shared between origins only by generators without per-run fields; the rest get a fresh build per call
+    private val sharedGenerator by lazy { generator.build() }
+    private val generationLimit = Semaphore(Runtime.getRuntime().availableProcessors().coerceAtLeast(1))
     private val generationCounter = AtomicInteger()
     private val locks = SingleFlightCache<ResolvedKey, ResolvedStructure<BST>> { key ->
         resolvedCache.getIfPresent(key)
@@ -444,12 +446,15 @@ class ProceduralStructure<T : ProceduralStructureGenerator.BaseBuilder<BST, *>,
         return generationCounter
     }
 
-    override fun getSize(): BlockVec3i = generator.build().getApproximateSize()
+    override fun getSize(): BlockVec3i = sharedGenerator.getApproximateSize()
 
     override fun cacheSize(): Long {
         return resolvedCache.estimatedSize()
     }
 
+    private fun generatorForRun(): ProceduralStructureGenerator<BST> =
+        sharedGenerator.takeIf { it.supportsConcurrentGeneration() } ?: generator.build()
+
     override fun place(world: BlockPlacer<BST>, origin: Vec3, context: StructurePlacementContext): Boolean {
         val resolved = resolve(origin, context)
         resolved.placementsByChunk.values.flatten().forEach { p ->
@@ -489,7 +494,7 @@ class ProceduralStructure<T : ProceduralStructureGenerator.BaseBuilder<BST, *>,
         val rnd = SeededRandomSource(requestKey.seed)
 
         // Generate placements using the generator (deterministic from key/seed)
-        val placements: List<BlockPlacement<BST>> = generator.build().generate(rnd, origin).placements
+        val placements: List<BlockPlacement<BST>> = generatorForRun().generate(rnd, origin).placements
 
         // Bucket by chunk and compute bounds
         val placementsByChunk = mutableMapOf<ChunkCoord, MutableList<BlockPlacement<BST>>>()
@@ -811,7 +816,6 @@ class WeightedStructurePlacer<T> : StructurePlacer<T> {
         return transformed
     }
 
-    @Synchronized
     override fun placeStructuresInChunk(
         chunkX: Int,
         chunkZ: Int,
@@ -824,16 +828,20 @@ class WeightedStructurePlacer<T> : StructurePlacer<T> {
         val chunkMinZ = chunkZ * 16
         val chunkMaxZ = chunkMinZ + 15
 
+        // per-chunk state only: nothing below is shared with other chunks except the placement cache,
+        // so many chunks can run this at once.
         val candidates = mutableListOf<PlacementInfo>()
         val structureBoxes = mutableListOf<StructureBox>()
 
         // snapshot rules
         val allRules = VSPEPlatformPlugin.structureManager().structures.values.map { it.second }
 
+        // quick biome check (use the chunk center) — same for every rule so resolve it once
+        val biome = context.biomeResolver.resolveBiome(chunkMinX + 8, 64, chunkMinZ + 8, context.random.getSeed())
+        val biomeId = ResourceLocation.from(biome.identifier)
+
         ruleLoop@ for (rule in allRules) {
-            // quick biome check (use the chunk center or provided location)
-            val biome = context.biomeResolver.resolveBiome(chunkMinX + 8, 64, chunkMinZ + 8, context.random.getSeed())
-            if (rule.biomes.contains { it == ResourceLocation.from(biome.identifier) }) continue
+            if (rule.biomes.contains { it == biomeId }) continue
 
             val structurePair = VSPEPlatformPlugin.structureManager().getStructures()[rule.resource] ?: continue
             val structure = structurePair.first
@@ -880,77 +888,15 @@ class WeightedStructurePlacer<T> : StructurePlacer<T> {
             for (cellX in minCellX..maxCellX) {
                 for (cellZ in minCellZ..maxCellZ) {
                     val key = CellKey(worldSeed, rule.resource, cellX, cellZ)
-                    var placement = placementCache.get(key)
-
-                    if (placement == null) {
-                        // deterministic RNG for this cell
-                        val seed = placementSeed(worldSeed, rule.resource, cellX, cellZ)
-                        val rng = Random(seed)
-
-                        if (rng.nextDouble() > rule.frequency) {
-                            // no structure in this cell
-                            placementCache.put(
-                                key,
-                                PlacementInfo.EMPTY
-                            ) // optional sentinel to avoid repeating RNG (tweakable)
-                            continue
-                        }
-
-                        // decide rotation/mirror deterministically
-                        val rot = when (rng.nextInt(4)) {
-                            0 -> Rotation.NONE
-                            1 -> Rotation.CLOCKWISE_90
-                            2 -> Rotation.CLOCKWISE_180
-                            else -> Rotation.COUNTERCLOCKWISE_90
-                        }
-                        val mir = when (rng.nextInt(2)) {
-                            0 -> Mirror.NONE
-                            1 -> Mirror.FRONT_BACK
-                            else -> Mirror.LEFT_RIGHT
-                        }
-
-                        val transformedSize = transformSize(Vec3(0.0, 0.0, 0.0), baseSize, rot, mir)
-                        val tSizeX = transformedSize.intX.toInt()
-                        val tSizeZ = transformedSize.intZ.toInt()
-
-                        // now compute origin offsets inside cell so the structure remains within the cell spacing
-                        val maxOffsetX = (cellSizeBlocks - tSizeX).coerceAtLeast(0)
-                        val maxOffsetZ = (cellSizeBlocks - tSizeZ).coerceAtLeast(0)
-                        val offsetX = if (maxOffsetX > 0) rng.nextInt(maxOffsetX + 1) else 0
-                        val offsetZ = if (maxOffsetZ > 0) rng.nextInt(maxOffsetZ + 1) else 0
-
-                        val originBlockX = cellX * cellSizeBlocks + offsetX
-                        val originBlockZ = cellZ * cellSizeBlocks + offsetZ
-
-                        // compute Y using a proper provider depending on rule (surface/underground/sky)
-                        val originBlockY = computeOriginYForRule(rule, originBlockX, originBlockZ, context)
-
-                        val originVec = Vec3(originBlockX.toDouble(), originBlockY.toDouble(), originBlockZ.toDouble())
-                        val min = originVec
-                        val max = originVec.offset(
-                            (transformedSize.intX - 1).toInt(),
-                            (transformedSize.intY - 1).toInt(),
-                            (transformedSize.intZ - 1).toInt()
-                        )
-                        val sBox = StructureBox(min, max, rule.resource)
-
-                        placement = PlacementInfo(
-                            origin = originVec,
-                            rotation = rot,
-                            mirror = mir,
-                            box = sBox,
-                            rule = rule,
-                            resolved = null
-                        )
-
-                        placementCache.put(key, placement)
-                    } else {
-                        // placement may be a sentinel "EMPTY" or existing record
-                        if (placement === PlacementInfo.EMPTY) continue
+
+                    // single-flight: the first chunk to touch a cell computes it, concurrent chunks wait for that result
+                    val placement = placementCache.getOrCompute(key) {
+                        computePlacement(rule, baseSize, cellSizeBlocks, cellX, cellZ, worldSeed, context)
                     }
+                    // sentinel for "no structure in this cell"
+                    if (placement === PlacementInfo.EMPTY) continue
 
                     // now check intersection with this chunk
-                    placement = placementCache.get(key) ?: continue
                     if (placement.box.max.x < chunkMinX ||
                         placement.box.min.x > chunkMaxX ||
                         placement.box.max.z < chunkMinZ ||
@@ -1023,6 +969,69 @@ class WeightedStructurePlacer<T> : StructurePlacer<T> {
     }
 
     // --- helpers below ---
+    // Deterministic placement for a single cell; only ever called once per CellKey through the placement cache.
+    private fun computePlacement(
+        rule: StructureRule,
+        baseSize: Vec3,
+        cellSizeBlocks: Int,
+        cellX: Int,
+        cellZ: Int,
+        worldSeed: Long,
+        context: ChunkGenerateContext<T, *>
+    ): PlacementInfo {
+        // deterministic RNG for this cell
+        val seed = placementSeed(worldSeed, rule.resource, cellX, cellZ)
+        val rng = Random(seed)
+
+        // no structure in this cell
+        if (rng.nextDouble() > rule.frequency) return PlacementInfo.EMPTY
+
+        // decide rotation/mirror deterministically
+        val rot = when (rng.nextInt(4)) {
+            0 -> Rotation.NONE
+            1 -> Rotation.CLOCKWISE_90
+            2 -> Rotation.CLOCKWISE_180
+            else -> Rotation.COUNTERCLOCKWISE_90
+        }
+        val mir = when (rng.nextInt(2)) {
+            0 -> Mirror.NONE
+            1 -> Mirror.FRONT_BACK
+            else -> Mirror.LEFT_RIGHT
+        }
+
+        val transformedSize = transformSize(Vec3(0.0, 0.0, 0.0), baseSize, rot, mir)
+        val tSizeX = transformedSize.intX.toInt()
+        val tSizeZ = transformedSize.intZ.toInt()
+
+        // now compute origin offsets inside cell so the structure remains within the cell spacing
+        val maxOffsetX = (cellSizeBlocks - tSizeX).coerceAtLeast(0)
+        val maxOffsetZ = (cellSizeBlocks - tSizeZ).coerceAtLeast(0)
+        val offsetX = if (maxOffsetX > 0) rng.nextInt(maxOffsetX + 1) else 0
+        val offsetZ = if (maxOffsetZ > 0) rng.nextInt(maxOffsetZ + 1) else 0
+
+        val originBlockX = cellX * cellSizeBlocks + offsetX
+        val originBlockZ = cellZ * cellSizeBlocks + offsetZ
+
+        // compute Y using a proper provider depending on rule (surface/underground/sky)
+        val originBlockY = computeOriginYForRule(rule, originBlockX, originBlockZ, context)
+
+        val originVec = Vec3(originBlockX.toDouble(), originBlockY.toDouble(), originBlockZ.toDouble())
+        val max = originVec.offset(
+            (transformedSize.intX - 1).toInt(),
+            (transformedSize.intY - 1).toInt(),
+            (transformedSize.intZ - 1).toInt()
+        )
+
+        return PlacementInfo(
+            origin = originVec,
+            rotation = rot,
+            mirror = mir,
+            box = StructureBox(originVec, max, rule.resource),
+            rule = rule,
+            resolved = null
+        )
+    }
+
     // Determine Y for a structure rule; adapt to your StructureRule shape (I assume it has 'verticalPlacement' or similar)
     private fun computeOriginYForRule(
         rule: StructureRule,
@@ -1137,9 +1146,22 @@ open class PlacementInfo(
 }
 class StructurePlacementCache {
     private val map = ConcurrentHashMap<CellKey, PlacementInfo>()
+    private val inflight = SingleFlightCache<CellKey, PlacementInfo> { map[it] }
 
     fun get(key: CellKey): PlacementInfo? = map[key]
 
+    /**
+     * Returns the placement for [key], running [compute] at most once per key even when
+     * several chunks ask for the same cell at the same time. Every caller sees the same instance.
+     */
+    fun getOrCompute(key: CellKey, compute: (CellKey) -> PlacementInfo): PlacementInfo {
+        map[key]?.let { return it }
+        return inflight.getOrGenerate(key) { k ->
+            val computed = compute(k)
+            map.putIfAbsent(k, computed) ?: computed
+        }
+    }
+
     fun put(key: CellKey, value: PlacementInfo) {
         map[key] = value
     }
@@ -0,0 +1,98 @@
+package org.vicky.vspe
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
+
+class KeyedLockStressTest {
+    private val threads = 16
+    private val keys = 24
+    private val rounds = 20_000
+
+    @Test
+    fun keyedLockDropsEveryEntryAfterContention() {
+        val locks = KeyedLock<Int>()
+        val counters = IntArray(keys) // only touched while holding the key's lock
+
+        hammer { rnd ->
+            val key = rnd.nextInt(keys)
+            locks.acquire(key).use { counters[key]++ }
+        }
+
+        assertEquals(threads * rounds, counters.sum(), "increments were lost, so a key was held twice")
+        assertEquals(0, locks.activeKeys())
+    }
+
+    @Test
+    fun keyedRWLockDropsEveryEntryAfterContention() {
+        val locks = KeyedRWLock<Int>()
+        val counters = IntArray(keys) // written only under the key's write lock
+
+        hammer { rnd ->
+            val key = rnd.nextInt(keys)
+            when (rnd.nextInt(4)) {
+                0 -> locks.withWrite(key) { counters[key]++ }
+                1 -> locks.withRead(key, { counters[key] }, ifLocked = { -1 })
+                else -> locks.withRead(key, { counters[key] })
+            }
+        }
+
+        assertTrue(counters.sum() > 0)
+        assertEquals(0, locks.activeKeys())
+    }
+
+    @Test
+    fun readerWaitsForWriterUnlessItHasAFallback() {
+        val locks = KeyedRWLock<String>()
+        val writing = CountDownLatch(1)
+        val finishWrite = CountDownLatch(1)
+        val pool = Executors.newFixedThreadPool(2)
+        try {
+            val writer = pool.submit(Callable {
+                locks.withWrite("k") {
+                    writing.countDown()
+                    finishWrite.await()
+                }
+            })
+            writing.await()
+
+            assertEquals("busy", locks.withRead("k", { "read" }, ifLocked = { "busy" }))
+            val reader = pool.submit(Callable { locks.withRead("k", { "read" }) })
+            Thread.sleep(50)
+            assertFalse(reader.isDone, "reader should block while the writer holds the key")
+
+            finishWrite.countDown()
+            writer.get(10, TimeUnit.SECONDS)
+            assertEquals("read", reader.get(10, TimeUnit.SECONDS))
+        } finally {
+            pool.shutdownNow()
+        }
+        assertEquals(0, locks.activeKeys())
+    }
+
+    // runs `op` `rounds` times on each of `threads` threads, all released together
+    private fun hammer(op: (ThreadLocalRandom) -> Unit) {
+        val start = CyclicBarrier(threads)
+        val pool = Executors.newFixedThreadPool(threads)
+        try {
+            val jobs: List<Future<*>> = (0 until threads).map {
+                pool.submit(Callable {
+                    start.await()
+                    val rnd = ThreadLocalRandom.current()
+                    repeat(rounds) { op(rnd) }
+                })
+            }
+            jobs.forEach { it.get(2, TimeUnit.MINUTES) }
+        } finally {
+            pool.shutdownNow()
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.vicky.vspe.platform.systems.dimension.StructureUtils.Generators
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.vicky.platform.utils.Vec3
+import org.vicky.vspe.platform.systems.dimension.vspeChunkGenerator.BlockPlacement
+import org.vicky.vspe.platform.systems.dimension.vspeChunkGenerator.SeededRandomSource
+import org.vicky.vspe.platform.systems.dimension.vspeChunkGenerator.SimpleBlockState
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class NoAIProceduralTreeGeneratorDeterminismTest {
+
+    private val generator = NoAIProceduralTreeGenerator.NoAIPTGBuilder<String?>()
+        .trunkHeight(14, 18)
+        .trunkWidth(2, 3)
+        .branchDepth(2)
+        .maxBranchAmount(3)
+        .woodMaterial(SimpleBlockState.from<String>("test:log") { it })
+        .leafMaterial(SimpleBlockState.from<String>("test:leaves") { it })
+        .build()
+
+    private val origin = Vec3(8.0, 64.0, -24.0)
+    private val seeds = longArrayOf(1L, 42L, -7_331L)
+
+    @Test
+    fun sameSeedAndOriginGiveTheSamePlacementsSeriallyAndConcurrently() {
+        assertTrue(generator.supportsConcurrentGeneration())
+        val expected = seeds.associateWith { generateFor(it) }
+        expected.values.forEach { assertFalse(it.isEmpty(), "tree produced no blocks") }
+
+        // several copies of each seed at once, all through the one shared instance
+        val pool = Executors.newFixedThreadPool(8)
+        try {
+            val jobs = (0 until 4).flatMap { seeds.toList() }.map { seed -> seed to pool.submit(Callable { generateFor(seed) }) }
+            for ((seed, job) in jobs) {
+                assertEquals(expected[seed], job.get(2, TimeUnit.MINUTES), "placements differ for seed $seed")
+            }
+        } finally {
+            pool.shutdownNow()
+        }
+
+        // and again serially after the concurrent runs, so nothing leaked between calls
+        for (seed in seeds) assertEquals(expected[seed], generateFor(seed), "placements differ for seed $seed")
+    }
+
+    private fun generateFor(seed: Long): List<String> =
+        normalise(generator.generate(SeededRandomSource(seed), origin).placements)
+
+    // subtask results merge in submission order; sorting keeps the check independent of how drains batch them
+    private fun normalise(placements: List<BlockPlacement<String?>>): List<String> =
+        placements.map { "${it.x},${it.y},${it.z}=${it.state?.id}" }.sorted()
+}
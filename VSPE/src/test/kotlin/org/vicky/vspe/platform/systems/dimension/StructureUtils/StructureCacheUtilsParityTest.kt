@@ -0,0 +1,157 @@
+package org.vicky.vspe.platform.systems.dimension.StructureUtils
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import kotlin.math.atan2
+import kotlin.math.cos
+import kotlin.math.floor
+import kotlin.math.hypot
+import kotlin.math.sqrt
+
+/**
+ * Checks the memoised tables against the original per-voxel builders, which are reproduced
+ * below exactly as they were before the tables were precomputed.
+ */
+class StructureCacheUtilsParityTest {
+
+    // every precomputed radius plus a few built lazily, one past the array-backed range
+    private val radii3D = (0..StructureCacheUtils.PRECOMPUTED_RADIUS).toList() + listOf(9, 17, 40)
+    private val radii2D = radii3D + listOf(300)
+
+    @Test
+    fun tablesMatchPerVoxelGeneration() {
+        for (r in radii3D) {
+            assertArrayEquals(referenceSphere(r, -r), StructureCacheUtils.getSphereOffsets(r), "sphere r=$r")
+            assertArrayEquals(referenceSphere(r, 0), StructureCacheUtils.getHemisphereOffsets(r), "hemisphere r=$r")
+            assertArrayEquals(referenceCube(r), StructureCacheUtils.getCubeOffsets(r), "cube r=$r")
+            assertArrayEquals(referenceCylinder(r), StructureCacheUtils.getCylinderOffsets(r), "cylinder r=$r")
+            assertArrayEquals(referenceCone(r), StructureCacheUtils.getConeOffsets(r), "cone r=$r")
+        }
+        for (r in radii2D) {
+            assertArrayEquals(referenceScanlines(r), StructureCacheUtils.getDiscScanlineWidths(r), "disc r=$r")
+            assertArrayEquals(ShortArray(2 * r + 1) { r.toShort() }, StructureCacheUtils.getSquareScanlineWidths(r), "square r=$r")
+            for (sides in 5..12) {
+                assertArrayEquals(referencePolygon(r, sides), StructureCacheUtils.getPolygonOffsets(r, sides), "polygon r=$r sides=$sides")
+            }
+        }
+    }
+
+    @Test
+    fun sphereRunsExpandToTheSameVoxelsInTheSameOrder() {
+        for (r in radii3D) {
+            val runs = StructureCacheUtils.getSphereRuns(r)
+            val expanded = ArrayList<Short>()
+            for (i in runs.indices step 3) {
+                val half = runs[i + 2].toInt()
+                for (dz in -half..half) {
+                    expanded += runs[i]
+                    expanded += runs[i + 1]
+                    expanded += dz.toShort()
+                }
+            }
+            assertArrayEquals(referenceSphere(r, -r), expanded.toShortArray(), "sphere runs r=$r")
+        }
+    }
+
+    @Test
+    fun concurrentLookupsShareOneTable() {
+        val pool = Executors.newFixedThreadPool(8)
+        try {
+            for (r in listOf(23, 511)) {
+                val tables = (0 until 32).map { pool.submit(Callable { StructureCacheUtils.getSphereRuns(r) }) }
+                    .map { it.get(1, TimeUnit.MINUTES) }
+                tables.forEach { assertSame(tables[0], it, "r=$r built twice") }
+            }
+        } finally {
+            pool.shutdownNow()
+        }
+    }
+
+    private fun referenceScanlines(r: Int): ShortArray {
+        val w = ShortArray(2 * r + 1)
+        for (dy in -r..r) w[dy + r] = floor(sqrt((r * r - dy * dy).toDouble())).toInt().toShort()
+        return w
+    }
+
+    // solid sphere from fromY..r; fromY = 0 gives the upper hemisphere
+    private fun referenceSphere(r: Int, fromY: Int): ShortArray {
+        val voxels = ArrayList<Short>()
+        for (dy in fromY..r) {
+            val sliceR = floor(sqrt((r * r - dy * dy).toDouble())).toInt()
+            for (dx in -sliceR..sliceR) {
+                val maxDz = floor(sqrt((sliceR * sliceR - dx * dx).toDouble())).toInt()
+                for (dz in -maxDz..maxDz) {
+                    voxels += dx.toShort()
+                    voxels += dy.toShort()
+                    voxels += dz.toShort()
+                }
+            }
+        }
+        return voxels.toShortArray()
+    }
+
+    private fun referenceCube(r: Int): ShortArray {
+        val voxels = ArrayList<Short>()
+        for (dy in -r..r) for (dx in -r..r) for (dz in -r..r) {
+            voxels += dx.toShort()
+            voxels += dy.toShort()
+            voxels += dz.toShort()
+        }
+        return voxels.toShortArray()
+    }
+
+    private fun referenceCylinder(r: Int): ShortArray {
+        val voxels = ArrayList<Short>()
+        val scan = referenceScanlines(r)
+        for (dy in -r..r) {
+            for (idx in scan.indices) {
+                val half = scan[idx].toInt()
+                for (dx in -half..half) {
+                    voxels += dx.toShort()
+                    voxels += (idx - r).toShort()
+                    voxels += dy.toShort()
+                }
+            }
+        }
+        return voxels.toShortArray()
+    }
+
+    private fun referenceCone(r: Int): ShortArray {
+        val voxels = ArrayList<Short>()
+        for (dy in 0..r) {
+            val sliceR = floor(r * (1.0 - dy / r.toDouble())).toInt()
+            for (dx in -sliceR..sliceR) {
+                val maxDz = floor(sqrt((sliceR * sliceR - dx * dx).toDouble())).toInt()
+                for (dz in -maxDz..maxDz) {
+                    voxels += dx.toShort()
+                    voxels += dy.toShort()
+                    voxels += dz.toShort()
+                }
+            }
+        }
+        return voxels.toShortArray()
+    }
+
+    private fun referencePolygon(r: Int, sides: Int): ShortArray {
+        val coords = ArrayList<Short>()
+        val angleStep = Math.TAU / sides
+        val cosHalfInterior = cos(Math.PI / sides)
+        for (dz in -r..r) {
+            for (dx in -r..r) {
+                var angle = atan2(dz.toDouble(), dx.toDouble())
+                if (angle < 0) angle += Math.TAU
+                val sectorAngle = Math.round(angle / angleStep) * angleStep
+                val maxRadius = r * cosHalfInterior / cos(angle - sectorAngle)
+                if (hypot(dx.toDouble(), dz.toDouble()) <= maxRadius) {
+                    coords += dx.toShort()
+                    coords += dz.toShort()
+                }
+            }
+        }
+        return coords.toShortArray()
+    }
+}